@@ -0,0 +1,63 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solution construction (sampling) and evaluation of a single ant.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AntBenchmark {
+
+	@Param({ "4", "20" })
+	private int alphabetLength;
+
+	@Param({ "10", "50" })
+	private int numStr;
+
+	@Param({ "1000", "10000" })
+	private int strLength;
+
+	private CSPSolver solver;
+	private Ant ant;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String instance = BenchmarkInstances.synthetic(this.alphabetLength, this.numStr, this.strLength, 42l);
+		this.solver = new CSPElitistSolver(BenchmarkInstances.config(instance, Algorithm.ELITIST));
+		this.ant = new Ant(new RandomUtils(7l));
+		this.ant.findSolution(this.solver.sampler, this.solver.problem.getAlphabet());
+	}
+
+	@Benchmark
+	public Ant findSolution() {
+		this.ant.findSolution(this.solver.sampler, this.solver.problem.getAlphabet());
+		return this.ant;
+	}
+
+	@Benchmark
+	public long evaluateSolution() {
+		this.ant.evaluateSolution(this.solver.problem.getPackedStrings());
+		return this.ant.getMaxHammingDistance();
+	}
+
+}
@@ -0,0 +1,85 @@
+package be.vub.swarmintelligence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic instances and solver configurations shared by the benchmarks.
+ *
+ */
+public final class BenchmarkInstances {
+
+	private static final String SYMBOLS = "ACGTDEFHIKLMNPQRSVWYBJOUXZ";
+
+	private BenchmarkInstances() {
+	}
+
+	/**
+	 * Writes a random instance to a temporary file. Strings are mutations of a
+	 * common centre string, so the instance has the structure of a real closest
+	 * string problem rather than being uniform noise.
+	 * 
+	 * @param alphabetLength
+	 * @param numStr
+	 * @param strLength
+	 * @param seed
+	 * @return location of the instance file
+	 * @throws IOException
+	 */
+	public static String synthetic(int alphabetLength, int numStr, int strLength, long seed) throws IOException {
+		if (alphabetLength > SYMBOLS.length()) {
+			throw new IllegalArgumentException("At most " + SYMBOLS.length() + " symbols are supported");
+		}
+		Random random = new Random(seed);
+		char[] centre = new char[strLength];
+		for (int j = 0; j < strLength; j++) {
+			centre[j] = SYMBOLS.charAt(random.nextInt(alphabetLength));
+		}
+		File file = File.createTempFile("csp-" + alphabetLength + "-" + numStr + "-" + strLength + "-", ".txt");
+		file.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println(alphabetLength);
+			out.println(numStr);
+			out.println(strLength);
+			for (int i = 0; i < alphabetLength; i++) {
+				out.println(SYMBOLS.charAt(i));
+			}
+			char[] str = new char[strLength];
+			for (int s = 0; s < numStr; s++) {
+				for (int j = 0; j < strLength; j++) {
+					str[j] = random.nextDouble() < 0.7 ? centre[j] : SYMBOLS.charAt(random.nextInt(alphabetLength));
+				}
+				out.println(str);
+			}
+		}
+		return file.getAbsolutePath();
+	}
+
+	/**
+	 * Default configuration, as given by the command line, for the instance at
+	 * the given location
+	 * 
+	 * @param instance
+	 * @param algorithm
+	 * @return
+	 */
+	public static Map<String, Object> config(String instance, Algorithm algorithm) {
+		Map<String, Object> cfg = new HashMap<>();
+		cfg.put("instance", instance);
+		cfg.put("numants", 20);
+		cfg.put("rho", algorithm == Algorithm.MINMAX ? 0.02 : 0.003);
+		cfg.put("alpha", 1.0);
+		cfg.put("beta", 1.0);
+		cfg.put("epsilon", 0.5);
+		cfg.put("seed", 1234);
+		cfg.put("maxiter", 1000);
+		cfg.put("algorithm", algorithm);
+		cfg.put("threads", 1);
+		cfg.put("localsearch", false);
+		return cfg;
+	}
+}
@@ -0,0 +1,70 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-iteration updates of the elitist solver and a full colony iteration.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+	@Param({ "4", "20" })
+	private int alphabetLength;
+
+	@Param({ "10", "50" })
+	private int numStr;
+
+	@Param({ "1000", "10000" })
+	private int strLength;
+
+	private CSPElitistSolver solver;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String instance = BenchmarkInstances.synthetic(this.alphabetLength, this.numStr, this.strLength, 42l);
+		this.solver = new CSPElitistSolver(BenchmarkInstances.config(instance, Algorithm.ELITIST));
+	}
+
+	@Benchmark
+	public DoubleMatrix updatePheromone() {
+		this.solver.updatePheromone();
+		return this.solver.probability;
+	}
+
+	/**
+	 * Includes the normalisation of the probabilities, run with -prof gc to
+	 * check that it does not allocate.
+	 */
+	@Benchmark
+	public DoubleMatrix updateProbability() {
+		this.solver.updateProbability();
+		return this.solver.probability;
+	}
+
+	@Benchmark
+	public DoubleMatrix solveColony() {
+		this.solver.solveColony();
+		return this.solver.probability;
+	}
+
+}
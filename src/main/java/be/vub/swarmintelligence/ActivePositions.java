@@ -0,0 +1,99 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Index of the positions of the solution that are still being decided. Once
+ * the probabilities of a position concentrate on a single symbol the position
+ * is frozen to it: the ants stop sampling it and its trails and probabilities
+ * are no longer updated, so the work of an iteration scales with the number
+ * of active positions.
+ * 
+ * Positions are frozen through {@link #freeze(int, int)} while iterating over
+ * the active ones, and only leave the index on the following
+ * {@link #compact()}, which keeps the remaining positions in increasing
+ * order.
+ *
+ */
+public class ActivePositions {
+
+	private final int[] active;
+	private int numActive;
+	// Symbol of every frozen position, -1 for the active ones
+	private final int[] frozenSymbols;
+	// Increased whenever the set of frozen positions changes
+	private int version;
+
+	public ActivePositions(int strLength) {
+		this.active = new int[strLength];
+		this.frozenSymbols = new int[strLength];
+		this.unfreezeAll();
+	}
+
+	/**
+	 * Fixes the given position to the given symbol
+	 * 
+	 * @param position
+	 * @param symbol
+	 */
+	public void freeze(int position, int symbol) {
+		this.frozenSymbols[position] = symbol;
+	}
+
+	/**
+	 * Removes the positions frozen since the last call from the index
+	 */
+	public void compact() {
+		int count = 0;
+		for (int a = 0; a < this.numActive; a++) {
+			if (this.frozenSymbols[this.active[a]] < 0) {
+				this.active[count++] = this.active[a];
+			}
+		}
+		if (count != this.numActive) {
+			this.numActive = count;
+			this.version++;
+		}
+	}
+
+	/**
+	 * Makes every position active again
+	 */
+	public void unfreezeAll() {
+		for (int j = 0; j < this.active.length; j++) {
+			this.active[j] = j;
+			this.frozenSymbols[j] = -1;
+		}
+		this.numActive = this.active.length;
+		this.version++;
+	}
+
+	/**
+	 * Writes the symbol of every frozen position into the given path
+	 * 
+	 * @param path
+	 */
+	public void copyFrozen(int[] path) {
+		for (int j = 0; j < this.frozenSymbols.length; j++) {
+			if (this.frozenSymbols[j] >= 0) {
+				path[j] = this.frozenSymbols[j];
+			}
+		}
+	}
+
+	/**
+	 * Active positions, the first {@link #getNumActive()} entries are valid
+	 * 
+	 * @return
+	 */
+	public int[] getActive() {
+		return active;
+	}
+
+	public int getNumActive() {
+		return numActive;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+}
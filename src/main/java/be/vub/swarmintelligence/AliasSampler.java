@@ -0,0 +1,120 @@
+package be.vub.swarmintelligence;
+
+/**
+ * {@link Sampler} based on Walker's alias method (Vose's variant). For every
+ * position it keeps one threshold and one alias per symbol, so a draw costs one
+ * random number and one comparison whatever the size of the alphabet.
+ * 
+ * The tables are built from the probabilities scaled by their actual sum,
+ * which absorbs floating point drift; any column left over by rounding gets a
+ * threshold of 1.0 so it can never point to an invalid alias.
+ *
+ */
+public class AliasSampler implements Sampler {
+
+	private final int strLength;
+	private final int alphabetLength;
+	private final double[] threshold;
+	private final int[] alias;
+
+	// Work buffers reused over every rebuild
+	private final double[] scaled;
+	private final int[] small;
+	private final int[] large;
+
+	public AliasSampler(int strLength, int alphabetLength) {
+		this.strLength = strLength;
+		this.alphabetLength = alphabetLength;
+		this.threshold = new double[strLength * alphabetLength];
+		this.alias = new int[strLength * alphabetLength];
+		this.scaled = new double[alphabetLength];
+		this.small = new int[alphabetLength];
+		this.large = new int[alphabetLength];
+	}
+
+	@Override
+	public void update(DoubleMatrix probability) {
+		double[] values = probability.getData();
+		for (int j = 0; j < this.strLength; j++) {
+			this.updatePosition(values, j);
+		}
+	}
+
+	@Override
+	public void update(DoubleMatrix probability, int[] positions, int count) {
+		double[] values = probability.getData();
+		for (int a = 0; a < count; a++) {
+			this.updatePosition(values, positions[a]);
+		}
+	}
+
+	/**
+	 * Builds the alias table of a single position
+	 * 
+	 * @param values
+	 * @param position
+	 */
+	protected void updatePosition(double[] values, int position) {
+		int offset = position * this.alphabetLength;
+		double sum = 0.0;
+		for (int i = 0; i < this.alphabetLength; i++) {
+			sum += values[offset + i];
+		}
+		if (!(sum > 0.0)) {
+			// Degenerate row, fall back to a uniform choice
+			for (int i = 0; i < this.alphabetLength; i++) {
+				this.threshold[offset + i] = 1.0;
+				this.alias[offset + i] = i;
+			}
+			return;
+		}
+		double factor = this.alphabetLength / sum;
+		int numSmall = 0;
+		int numLarge = 0;
+		for (int i = 0; i < this.alphabetLength; i++) {
+			this.scaled[i] = values[offset + i] * factor;
+			if (this.scaled[i] < 1.0) {
+				this.small[numSmall++] = i;
+			} else {
+				this.large[numLarge++] = i;
+			}
+		}
+		while (numSmall > 0 && numLarge > 0) {
+			int l = this.small[--numSmall];
+			int g = this.large[--numLarge];
+			this.threshold[offset + l] = this.scaled[l];
+			this.alias[offset + l] = g;
+			this.scaled[g] = (this.scaled[g] + this.scaled[l]) - 1.0;
+			if (this.scaled[g] < 1.0) {
+				this.small[numSmall++] = g;
+			} else {
+				this.large[numLarge++] = g;
+			}
+		}
+		while (numLarge > 0) {
+			int g = this.large[--numLarge];
+			this.threshold[offset + g] = 1.0;
+			this.alias[offset + g] = g;
+		}
+		// Only reachable because of rounding errors
+		while (numSmall > 0) {
+			int l = this.small[--numSmall];
+			this.threshold[offset + l] = 1.0;
+			this.alias[offset + l] = l;
+		}
+	}
+
+	@Override
+	public int sample(int position, RandomUtils randUtils) {
+		double u = randUtils.nextDouble() * this.alphabetLength;
+		int column = Math.min((int) u, this.alphabetLength - 1);
+		int idx = position * this.alphabetLength + column;
+		return u - column < this.threshold[idx] ? column : this.alias[idx];
+	}
+
+	@Override
+	public int getStrLength() {
+		return strLength;
+	}
+
+}
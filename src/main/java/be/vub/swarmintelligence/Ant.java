@@ -1,76 +1,183 @@
 package be.vub.swarmintelligence;
 
-import java.util.ArrayList;
-import java.util.IntSummaryStatistics;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Ant of the colony. Its buffers are allocated on the first iteration and
+ * reused afterwards, so building and evaluating solutions allocates nothing.
+ * As a consequence the path returned by {@link #getPath()} is overwritten by
+ * the next solution, callers keeping a solution must copy it.
+ *
+ */
 public class Ant {
 
 	// Total sum of all Humming Distances from the set of strings
-	private Long score = 999999l;
-	private Long maxHammingDistance;
-	private Long minHammingDistance;
+	private long score = 999999l;
+	// Unevaluated ants are worse than any solution
+	private long maxHammingDistance = Long.MAX_VALUE;
+	private long minHammingDistance = Long.MAX_VALUE;
+
+	private List<Character> alphabet;
+	private int[] path;
+	// Bit-packed copy of the path used to compute the distances
+	private long[] packedPath;
+	// Version of the frozen positions held by the path, -1 when unknown
+	private int positionsVersion = -1;
+
+	// Random stream owned by this ant, so that ants can build their solutions
+	// concurrently
+	private final RandomUtils randUtils;
+
+	public Ant(RandomUtils randUtils) {
+		this.randUtils = randUtils;
+	}
 
-	private String solution;
-	private List<Integer> path;
-	
 	/**
-	 * Finds a solution using the probability values given by the pheromone
-	 * traces.
+	 * Finds a solution drawing the symbol of every position from the sampler,
+	 * which reflects the probability values given by the pheromone traces.
 	 * 
-	 * @param pheromoneProbabilities
+	 * @param sampler
 	 * @param alphabet
 	 */
-	public void findSolution(List<List<Double>> pheromoneProbabilities, List<Character> alphabet) {
-		RandomUtils randUtils = RandomUtils.getInstance(null);
-		List<Integer> positions = pheromoneProbabilities.stream().map(ls -> randUtils.getRandomFromSimpleList(ls))
-				.collect(Collectors.toList());
-		StringBuilder sb = new StringBuilder();
-		this.path = positions;
-		for (Integer p : positions) {
-			sb.append(alphabet.get(p));
+	public void findSolution(Sampler sampler, List<Character> alphabet) {
+		if (this.path == null) {
+			this.path = new int[sampler.getStrLength()];
+		}
+		int[] positions = this.path;
+		for (int j = 0; j < positions.length; j++) {
+			positions[j] = sampler.sample(j, this.randUtils);
 		}
-		this.solution = sb.toString();
+		this.alphabet = alphabet;
 	}
 
-	public void evaluateSolution(List<String> strings) {
-		IntSummaryStatistics solutionStatistics = strings.stream().map(s -> this.hammingDistance(s, this.solution))
-				.mapToInt(Integer::intValue).summaryStatistics();
-		this.score = solutionStatistics.getSum();
-		this.maxHammingDistance = (long) solutionStatistics.getMax();
-		this.minHammingDistance = (long) solutionStatistics.getMin();
+	/**
+	 * Finds a solution drawing only the active positions from the sampler. The
+	 * frozen positions keep their symbol, only written again when the set of
+	 * frozen positions changes.
+	 * 
+	 * @param sampler
+	 * @param alphabet
+	 * @param positions
+	 */
+	public void findSolution(Sampler sampler, List<Character> alphabet, ActivePositions positions) {
+		if (this.path == null) {
+			this.path = new int[sampler.getStrLength()];
+		}
+		if (this.positionsVersion != positions.getVersion()) {
+			positions.copyFrozen(this.path);
+			this.positionsVersion = positions.getVersion();
+		}
+		int[] active = positions.getActive();
+		for (int a = 0; a < positions.getNumActive(); a++) {
+			this.path[active[a]] = sampler.sample(active[a], this.randUtils);
+		}
+		this.alphabet = alphabet;
 	}
 
-	private Integer hammingDistance(String str1, String str2) {
-		if (str1.length() != str2.length()) {
-			throw new IllegalStateException("Strings should have the same length to compute the Hamming Distance");
+	/**
+	 * Takes a copy of a solution built elsewhere. It has to be evaluated
+	 * afterwards.
+	 * 
+	 * @param path
+	 * @param alphabet
+	 */
+	public void setSolution(int[] path, List<Character> alphabet) {
+		if (this.path == null) {
+			this.path = new int[path.length];
 		}
-		Integer hd = 0;
-		for (int i = 0; i < str1.length(); i++) {
-			hd += str1.charAt(i) == str2.charAt(i) ? 0 : 1;
+		System.arraycopy(path, 0, this.path, 0, path.length);
+		this.alphabet = alphabet;
+		this.positionsVersion = -1;
+	}
+
+	/**
+	 * Computes the Hamming distances between the solution and every string of
+	 * the problem, working on the packed representation of both.
+	 * 
+	 * @param strings
+	 */
+	public void evaluateSolution(PackedStrings strings) {
+		if (this.packedPath == null) {
+			this.packedPath = strings.newBuffer();
 		}
-		return hd;
+		strings.pack(this.path, this.packedPath);
+		long sum = 0l;
+		int max = Integer.MIN_VALUE;
+		int min = Integer.MAX_VALUE;
+		for (int s = 0; s < strings.getNumStr(); s++) {
+			int hd = strings.distance(s, this.packedPath);
+			sum += hd;
+			max = Math.max(max, hd);
+			min = Math.min(min, hd);
+		}
+		this.score = sum;
+		this.maxHammingDistance = max;
+		this.minHammingDistance = min;
+	}
+
+	/**
+	 * Evaluates the solution through an incremental evaluator, leaving it loaded
+	 * with the ant's path so that further single position changes can be
+	 * scored cheaply.
+	 * 
+	 * @param evaluator
+	 */
+	public void evaluateSolution(HammingEvaluator evaluator) {
+		evaluator.load(this.path);
+		this.setScores(evaluator);
+	}
+
+	/**
+	 * Takes the solution currently held by the evaluator, e.g. after a local
+	 * search improved on the ant's own path.
+	 * 
+	 * @param evaluator
+	 */
+	public void update(HammingEvaluator evaluator) {
+		System.arraycopy(evaluator.getPath(), 0, this.path, 0, this.path.length);
+		this.setScores(evaluator);
+		// The search may have changed frozen positions
+		this.positionsVersion = -1;
+	}
+
+	private void setScores(HammingEvaluator evaluator) {
+		this.score = evaluator.getSum();
+		this.maxHammingDistance = evaluator.getMax();
+		this.minHammingDistance = evaluator.getMin();
 	}
 
-	public Long getScore() {
+	public long getScore() {
 		return score;
 	}
 
-	public Long getMaxHammingDistance() {
+	public long getMaxHammingDistance() {
 		return maxHammingDistance;
 	}
 
-	public Long getMinHammingDistance() {
+	public long getMinHammingDistance() {
 		return minHammingDistance;
 	}
 
+	/**
+	 * Builds the string corresponding to the current path. Only meant to be
+	 * called to report a solution, the search itself never needs it.
+	 * 
+	 * @return
+	 */
 	public String getSolution() {
-		return solution;
+		StringBuilder sb = new StringBuilder(this.path.length);
+		for (int p : this.path) {
+			sb.append(this.alphabet.get(p));
+		}
+		return sb.toString();
 	}
-	
-	public List<Integer> getPath(){
+
+	public int[] getPath() {
 		return this.path;
 	}
 
+	public RandomUtils getRandUtils() {
+		return randUtils;
+	}
+
 }
@@ -1,8 +1,12 @@
 package be.vub.swarmintelligence;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.cli.CommandLine;
@@ -31,13 +35,114 @@ public class App {
 			help(); // calls exit
 		}
 		Map<String, Object> cfg = getCLIConfig(args);
-		RandomUtils.getInstance((Integer) cfg.get("seed"));
-		CSPSolver solver;
-		if (cfg.get("algorithm").equals(Algorithm.ELITIST)) {
-			solver = new CSPElitistSolver(cfg);
-			solver.solve();
+		checkUnsupportedOptions(cfg);
+		if (cfg.containsKey("batch")) {
+			runBatch(cfg, args);
+			return;
 		}
+		if (!cfg.containsKey("instance")) {
+			LOGGER.error("Either an instance or a batch of instances is required");
+			help();
+		}
+		if (cfg.containsKey("convert")) {
+			CSPProblem problem = new CSPProblem((String) cfg.get("instance"));
+			BinaryInstanceFormat.write(problem, (String) cfg.get("convert"));
+			LOGGER.info("Binary instance written to " + cfg.get("convert"));
+			return;
+		}
+		if ((Integer) cfg.get("islands") > 1) {
+			IslandModel islands = new IslandModel(cfg);
+			islands.solve();
+			LOGGER.info("Best solution: " + islands.getBestColony().getBestSolution());
+			return;
+		}
+		CSPSolver solver = createSolver(cfg);
+		if (cfg.containsKey("resume")) {
+			solver.restore(Checkpoint.read(Paths.get((String) cfg.get("resume"))));
+		}
+		solver.solve();
+		LOGGER.info("Best solution: " + solver.getBestSolution());
+
+	}
+
+	/**
+	 * Creates the solver for the algorithm given in the configuration
+	 * 
+	 * @param cfg
+	 * @return
+	 * @throws IOException
+	 */
+	static CSPSolver createSolver(Map<String, Object> cfg) throws IOException {
+		if (cfg.get("algorithm").equals(Algorithm.MINMAX)) {
+			return new CSPMinMaxSolver(cfg);
+		}
+		return new CSPElitistSolver(cfg);
+	}
+
+	/**
+	 * Runs every instance of the batch with every configuration of the configs
+	 * file. Each line of that file holds command line options which take
+	 * precedence over the ones given to the application. Without configs file
+	 * the application options are the only configuration.
+	 * 
+	 * @param cfg
+	 * @param args
+	 * @throws IOException
+	 */
+	private static void runBatch(Map<String, Object> cfg, String[] args) throws IOException {
+		List<String> instances = BatchRunner.listInstances((String) cfg.get("batch"));
+		List<String> labels = new ArrayList<>();
+		List<Map<String, Object>> configs = new ArrayList<>();
+		if (cfg.containsKey("configs")) {
+			for (String line : BatchRunner.readEntries((String) cfg.get("configs"))) {
+				List<String> lineArgs = new ArrayList<>(Arrays.asList(line.split("\\s+")));
+				// commons-cli keeps the first value of repeated options
+				lineArgs.addAll(Arrays.asList(args));
+				labels.add(line);
+				Map<String, Object> lineCfg = getCLIConfig(lineArgs.toArray(new String[lineArgs.size()]));
+				checkUnsupportedOptions(lineCfg);
+				configs.add(lineCfg);
+			}
+		} else {
+			labels.add("default");
+			configs.add(cfg);
+		}
+		try {
+			new BatchRunner(instances, labels, configs, (Integer) cfg.get("jobs"), (String) cfg.get("output")).run();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
+	/**
+	 * Rejects the options that batch and island runs would otherwise drop or
+	 * misuse: batch jobs run a single colony each, and neither the concurrent
+	 * jobs of a batch nor the colonies of an island run checkpoint or export
+	 * metrics, as they would all share the same file.
+	 * 
+	 * @param cfg
+	 */
+	private static void checkUnsupportedOptions(Map<String, Object> cfg) {
+		String mode = cfg.containsKey("batch") ? "--batch" : (Integer) cfg.get("islands") > 1 ? "--islands" : null;
+		if (mode == null) {
+			return;
+		}
+		List<String> unsupported = new ArrayList<>();
+		if (cfg.containsKey("batch") && (Integer) cfg.get("islands") > 1) {
+			unsupported.add("--islands");
+		}
+		if (cfg.containsKey("resume")) {
+			unsupported.add("--resume");
+		} else if (cfg.containsKey("checkpoint")) {
+			unsupported.add("--checkpoint");
+		}
+		if (cfg.containsKey("metrics")) {
+			unsupported.add("--metrics");
+		}
+		if (!unsupported.isEmpty()) {
+			LOGGER.error(String.join(", ", unsupported) + " cannot be combined with " + mode);
+			help();
+		}
 	}
 
 	private static Map<String, Object> getCLIConfig(String[] args) {
@@ -52,6 +157,38 @@ public class App {
 			if (cliArgs.hasOption("instance")) {
 				response.put("instance", (String) cliArgs.getOptionValue("instance"));
 			}
+			if (cliArgs.hasOption("batch")) {
+				response.put("batch", cliArgs.getOptionValue("batch"));
+			}
+			if (cliArgs.hasOption("configs")) {
+				response.put("configs", cliArgs.getOptionValue("configs"));
+			}
+			if (cliArgs.hasOption("output")) {
+				response.put("output", cliArgs.getOptionValue("output"));
+			} else {
+				response.put("output", "results.csv");
+			}
+			if (cliArgs.hasOption("jobs")) {
+				response.put("jobs", Integer.valueOf(cliArgs.getOptionValue("jobs")));
+			} else {
+				response.put("jobs", Runtime.getRuntime().availableProcessors());
+			}
+			if (cliArgs.hasOption("checkpoint")) {
+				response.put("checkpoint", cliArgs.getOptionValue("checkpoint"));
+			}
+			if (cliArgs.hasOption("checkpointinterval")) {
+				response.put("checkpointinterval", Integer.valueOf(cliArgs.getOptionValue("checkpointinterval")));
+			} else {
+				response.put("checkpointinterval", 1000);
+			}
+			if (cliArgs.hasOption("resume")) {
+				response.put("resume", cliArgs.getOptionValue("resume"));
+				// Keep checkpointing the resumed run
+				response.putIfAbsent("checkpoint", cliArgs.getOptionValue("resume"));
+			}
+			if (cliArgs.hasOption("convert")) {
+				response.put("convert", cliArgs.getOptionValue("convert"));
+			}
 			if (cliArgs.hasOption("numants")) {
 				response.put("numants", Integer.valueOf(cliArgs.getOptionValue("numants")));
 			} else {
@@ -59,6 +196,9 @@ public class App {
 			}
 			if (cliArgs.hasOption("rho")) {
 				response.put("rho", Double.valueOf(cliArgs.getOptionValue("rho")));
+			} else if ("minmax".equalsIgnoreCase(cliArgs.getOptionValue("algorithm"))) {
+				// Trails start at tauMax, so MinMax needs a faster evaporation
+				response.put("rho", 0.02);
 			} else {
 				response.put("rho", 0.003);
 			}
@@ -67,11 +207,21 @@ public class App {
 			} else {
 				response.put("alpha", 1.0);
 			}
+			if (cliArgs.hasOption("beta")) {
+				response.put("beta", Double.valueOf(cliArgs.getOptionValue("beta")));
+			} else {
+				response.put("beta", 1.0);
+			}
 			if (cliArgs.hasOption("epsilon")) {
 				response.put("epsilon", Double.valueOf(cliArgs.getOptionValue("epsilon")));
 			} else {
 				response.put("epsilon", 0.5);
 			}
+			if (cliArgs.hasOption("deposit")) {
+				response.put("deposit", DepositStrategy.valueOf(cliArgs.getOptionValue("deposit").toUpperCase()));
+			} else {
+				response.put("deposit", DepositStrategy.GLOBAL);
+			}
 			if (cliArgs.hasOption("seed")) {
 				response.put("seed", Integer.valueOf(cliArgs.getOptionValue("seed")));
 			} else {
@@ -82,16 +232,96 @@ public class App {
 			} else {
 				response.put("maxiter", 1000);
 			}
+			if (cliArgs.hasOption("timelimit")) {
+				response.put("timelimit", Integer.valueOf(cliArgs.getOptionValue("timelimit")));
+			}
+			if (cliArgs.hasOption("target")) {
+				response.put("target", Integer.valueOf(cliArgs.getOptionValue("target")));
+			}
+			if (cliArgs.hasOption("stagnation")) {
+				response.put("stagnation", Integer.valueOf(cliArgs.getOptionValue("stagnation")));
+			}
+			if (cliArgs.hasOption("metrics")) {
+				response.put("metrics", cliArgs.getOptionValue("metrics"));
+			}
+			if (cliArgs.hasOption("metricsformat")) {
+				response.put("metricsformat", cliArgs.getOptionValue("metricsformat"));
+			} else {
+				response.put("metricsformat", "csv");
+			}
 			if (cliArgs.hasOption("algorithm")) {
 				response.put("algorithm", Algorithm.valueOf(cliArgs.getOptionValue("algorithm").toUpperCase()));
 			} else {
 				response.put("algorithm", Algorithm.ELITIST);
 			}
+			if (cliArgs.hasOption("pbest")) {
+				response.put("pbest", Double.valueOf(cliArgs.getOptionValue("pbest")));
+			} else {
+				response.put("pbest", 0.05);
+			}
+			if (cliArgs.hasOption("gbfrequency")) {
+				response.put("gbfrequency", Integer.valueOf(cliArgs.getOptionValue("gbfrequency")));
+			} else {
+				response.put("gbfrequency", 5);
+			}
+			if (cliArgs.hasOption("restart")) {
+				response.put("restart", Integer.valueOf(cliArgs.getOptionValue("restart")));
+			} else {
+				response.put("restart", 250);
+			}
+			if (cliArgs.hasOption("threads")) {
+				response.put("threads", Integer.valueOf(cliArgs.getOptionValue("threads")));
+			} else {
+				response.put("threads", 1);
+			}
+			if (cliArgs.hasOption("islands")) {
+				response.put("islands", Integer.valueOf(cliArgs.getOptionValue("islands")));
+			} else {
+				response.put("islands", 1);
+			}
+			if (cliArgs.hasOption("migration")) {
+				response.put("migration", Integer.valueOf(cliArgs.getOptionValue("migration")));
+			} else {
+				response.put("migration", 25);
+			}
+			if (cliArgs.hasOption("blend")) {
+				response.put("blend", Double.valueOf(cliArgs.getOptionValue("blend")));
+			} else {
+				response.put("blend", 0.0);
+			}
+			if (cliArgs.hasOption("candidates")) {
+				response.put("candidates", Integer.valueOf(cliArgs.getOptionValue("candidates")));
+			} else {
+				response.put("candidates", 0);
+			}
+			if (cliArgs.hasOption("freeze")) {
+				response.put("freeze", Double.valueOf(cliArgs.getOptionValue("freeze")));
+			} else {
+				response.put("freeze", 0.0);
+			}
+			if (cliArgs.hasOption("unfreeze")) {
+				response.put("unfreeze", Integer.valueOf(cliArgs.getOptionValue("unfreeze")));
+			} else {
+				response.put("unfreeze", 0);
+			}
 			if (cliArgs.hasOption("localsearch")) {
 				response.put("localsearch", true);
 			} else {
 				response.put("localsearch", false);
 			}
+			if (cliArgs.hasOption("lsmode")) {
+				response.put("lsmode", LocalSearchMode.valueOf(cliArgs.getOptionValue("lsmode").toUpperCase()));
+			} else {
+				response.put("lsmode", LocalSearchMode.FIRST);
+			}
+			if (cliArgs.hasOption("lsmoves")) {
+				response.put("lsmoves", Integer.valueOf(cliArgs.getOptionValue("lsmoves")));
+			}
+			if (cliArgs.hasOption("lstime")) {
+				response.put("lstime", Integer.valueOf(cliArgs.getOptionValue("lstime")));
+			} else {
+				response.put("lstime", 0);
+			}
 
 		} catch (ParseException ex) {
 			// oops, something went wrong
@@ -129,12 +359,91 @@ public class App {
 				argName("instance").
 				hasArg().
 				longOpt("instance").
-				desc("File location of the instance to use in the problem").
-				required().
+				desc("File location of the instance to use in the problem, either in text or binary format").
 				build();
 		options.addOption(instance);
 		//@formatter:on
 
+		//@formatter:off
+		Option batch = Option.builder().
+				argName("batch").
+				hasArg().
+				longOpt("batch").
+				desc("Directory of instances, or manifest file listing one instance per line, to solve in batch mode").
+				build();
+		options.addOption(batch);
+		//@formatter:on
+
+		//@formatter:off
+		Option configs = Option.builder().
+				argName("configs").
+				hasArg().
+				longOpt("configs").
+				desc("File with one configuration per line, given as command line options, to run every batch instance with").
+				build();
+		options.addOption(configs);
+		//@formatter:on
+
+		//@formatter:off
+		Option output = Option.builder().
+				argName("output").
+				hasArg().
+				longOpt("output").
+				desc("CSV file receiving the batch results as jobs finish. Defaults to results.csv").
+				build();
+		options.addOption(output);
+		//@formatter:on
+
+		//@formatter:off
+		Option jobs = Option.builder().
+				argName("jobs").
+				hasArg().
+				longOpt("jobs").
+				desc("Number of batch jobs run concurrently. Defaults to the number of processors").
+				build();
+		options.addOption(jobs);
+		//@formatter:on
+
+		//@formatter:off
+		Option checkpoint = Option.builder().
+				argName("checkpoint").
+				hasArg().
+				longOpt("checkpoint").
+				desc("File where the state of the run is periodically saved, so that it can be resumed").
+				build();
+		options.addOption(checkpoint);
+		//@formatter:on
+
+		//@formatter:off
+		Option checkpointInterval = Option.builder().
+				argName("checkpointinterval").
+				hasArg().
+				longOpt("checkpointinterval").
+				desc("Iterations between checkpoints. Defaults to 1000").
+				build();
+		options.addOption(checkpointInterval);
+		//@formatter:on
+
+		//@formatter:off
+		Option resume = Option.builder().
+				argName("resume").
+				hasArg().
+				longOpt("resume").
+				desc("Checkpoint to resume a run from. The run must use the same instance and options, the time limit applies to the resumed part only").
+				build();
+		options.addOption(resume);
+		//@formatter:on
+
+		//@formatter:off
+		Option convert = Option.builder("c").
+				argName("convert").
+				hasArg().
+				longOpt("convert").
+				desc("Converts the instance to the binary format, writing it to the given file, and exits without solving").
+				build();
+		options.addOption(convert);
+		//@formatter:on
+
 		//@formatter:off
 		Option numAnts = Option.builder("n").
 				argName("numants").
@@ -150,7 +459,7 @@ public class App {
 				argName("rho").
 				hasArg().
 				longOpt("rho").
-				desc("Rho value used in pheromone evaporation").
+				desc("Rho value used in pheromone evaporation. Defaults to 0.003 for ELITIST and 0.02 for MINMAX").
 				build();
 		options.addOption(rho);
 		//@formatter:on
@@ -160,10 +469,20 @@ public class App {
 				argName("alpha").
 				hasArg().
 				longOpt("alpha").
-				desc("Alpha value used in probability updates").
+				desc("Alpha value used in probability updates, exponent of the pheromone").
 				build();
 		options.addOption(alpha);
 		//@formatter:on
+
+		//@formatter:off
+		Option beta = Option.builder("b").
+				argName("beta").
+				hasArg().
+				longOpt("beta").
+				desc("Beta value used in probability updates, exponent of the heuristic information").
+				build();
+		options.addOption(beta);
+		//@formatter:on
 		
 		//@formatter:off
 		Option epsilon = Option.builder("e").
@@ -175,6 +494,16 @@ public class App {
 		options.addOption(epsilon);
 		//@formatter:on
 
+		//@formatter:off
+		Option deposit = Option.builder().
+				argName("deposit").
+				hasArg().
+				longOpt("deposit").
+				desc("Solution reinforced by the elitist solver: global (default) for the best so far or iteration for the best of each iteration").
+				build();
+		options.addOption(deposit);
+		//@formatter:on
+
 		//@formatter:off
 		Option seed = Option.builder("s").
 				argName("seed").
@@ -195,6 +524,56 @@ public class App {
 		options.addOption(maxIter);
 		//@formatter:on
 
+		//@formatter:off
+		Option timeLimit = Option.builder().
+				argName("timelimit").
+				hasArg().
+				longOpt("timelimit").
+				desc("Wall-clock budget in milliseconds after which the solver stops, counted from the start of its setup so that loading the instance is included").
+				build();
+		options.addOption(timeLimit);
+		//@formatter:on
+
+		//@formatter:off
+		Option target = Option.builder().
+				argName("target").
+				hasArg().
+				longOpt("target").
+				desc("Maximum Hamming distance at which the solver stops as soon as it is reached").
+				build();
+		options.addOption(target);
+		//@formatter:on
+
+		//@formatter:off
+		Option stagnation = Option.builder().
+				argName("stagnation").
+				hasArg().
+				longOpt("stagnation").
+				desc("Number of iterations without improvement of the maximum Hamming distance after which the solver stops").
+				build();
+		options.addOption(stagnation);
+		//@formatter:on
+
+		//@formatter:off
+		Option metrics = Option.builder().
+				argName("metrics").
+				hasArg().
+				longOpt("metrics").
+				desc("File where per-iteration metrics (phase timings, scores, pheromone entropy, allocations) are written. Disabled by default, not available with --batch or --islands").
+				build();
+		options.addOption(metrics);
+		//@formatter:on
+
+		//@formatter:off
+		Option metricsFormat = Option.builder().
+				argName("metricsformat").
+				hasArg().
+				longOpt("metricsformat").
+				desc("Format of the metrics file, csv (default) or json for JSON lines").
+				build();
+		options.addOption(metricsFormat);
+		//@formatter:on
+
 		//@formatter:off
 		Option algo = Option.builder("g").
 				argName("algorithm").
@@ -205,16 +584,146 @@ public class App {
 		options.addOption(algo);
 		//@formatter:on
 
+		//@formatter:off
+		Option pBest = Option.builder("p").
+				argName("pbest").
+				hasArg().
+				longOpt("pbest").
+				desc("Probability of building the best solution once converged, used to set the MinMax trail limits").
+				build();
+		options.addOption(pBest);
+		//@formatter:on
+
+		//@formatter:off
+		Option gbFrequency = Option.builder("f").
+				argName("gbfrequency").
+				hasArg().
+				longOpt("gbfrequency").
+				desc("MinMax deposits pheromone from the global best every gbfrequency iterations and from the iteration best otherwise").
+				build();
+		options.addOption(gbFrequency);
+		//@formatter:on
+
+		//@formatter:off
+		Option restart = Option.builder("R").
+				argName("restart").
+				hasArg().
+				longOpt("restart").
+				desc("Iterations without improvement after which MinMax reinitialises the pheromone trails").
+				build();
+		options.addOption(restart);
+		//@formatter:on
+
+		//@formatter:off
+		Option threads = Option.builder("t").
+				argName("threads").
+				hasArg().
+				longOpt("threads").
+				desc("Number of threads used to build the ants' solutions in parallel. 1 (default) runs the colony sequentially").
+				build();
+		options.addOption(threads);
+		//@formatter:on
+
+		//@formatter:off
+		Option candidates = Option.builder().
+				argName("candidates").
+				hasArg().
+				longOpt("candidates").
+				desc("Size of the per position lists of most likely symbols that solutions are drawn from first. 0 (default) draws from alias tables over the whole alphabet").
+				build();
+		options.addOption(candidates);
+		//@formatter:on
+
+		//@formatter:off
+		Option freeze = Option.builder().
+				argName("freeze").
+				hasArg().
+				longOpt("freeze").
+				desc("Probability from which a symbol settles its position, which is then no longer sampled nor updated. 0 (default) never freezes positions").
+				build();
+		options.addOption(freeze);
+		//@formatter:on
+
+		//@formatter:off
+		Option unfreeze = Option.builder().
+				argName("unfreeze").
+				hasArg().
+				longOpt("unfreeze").
+				desc("Iterations between reactivating every frozen position. 0 (default) never reactivates them").
+				build();
+		options.addOption(unfreeze);
+		//@formatter:on
+
+		//@formatter:off
+		Option islands = Option.builder().
+				argName("islands").
+				hasArg().
+				longOpt("islands").
+				desc("Number of colonies solving the instance concurrently, each on its own thread. 1 (default) runs a single colony. Not available with --checkpoint, --resume, --metrics or --batch").
+				build();
+		options.addOption(islands);
+		//@formatter:on
+
+		//@formatter:off
+		Option migration = Option.builder().
+				argName("migration").
+				hasArg().
+				longOpt("migration").
+				desc("Iterations between exchanges of best solutions among colonies. Defaults to 25").
+				build();
+		options.addOption(migration);
+		//@formatter:on
+
+		//@formatter:off
+		Option blend = Option.builder().
+				argName("blend").
+				hasArg().
+				longOpt("blend").
+				desc("Weight of the neighbour colony's trails blended into the own ones on every exchange, between 0 (default, no blending) and 1").
+				build();
+		options.addOption(blend);
+		//@formatter:on
+
 		//@formatter:off
 		Option localSearch = Option.builder("l").
 				argName("localsearch").
 				hasArg(false).
 				longOpt("localsearch").
-				desc("Whether or not to use local search for the MinMax solution").
+				desc("Whether or not to apply local search to the best ant of every iteration").
 				build();
 		options.addOption(localSearch);
 		//@formatter:on
 
+		//@formatter:off
+		Option lsMode = Option.builder().
+				argName("lsmode").
+				hasArg().
+				longOpt("lsmode").
+				desc("Local search move selection. FIRST (default) or BEST improvement").
+				build();
+		options.addOption(lsMode);
+		//@formatter:on
+
+		//@formatter:off
+		Option lsMoves = Option.builder().
+				argName("lsmoves").
+				hasArg().
+				longOpt("lsmoves").
+				desc("Maximum number of moves evaluated by each local search call, 0 for no limit. Defaults to one sweep of the neighbourhood").
+				build();
+		options.addOption(lsMoves);
+		//@formatter:on
+
+		//@formatter:off
+		Option lsTime = Option.builder().
+				argName("lstime").
+				hasArg().
+				longOpt("lstime").
+				desc("Maximum time in milliseconds spent by each local search call, 0 (default) for no limit").
+				build();
+		options.addOption(lsTime);
+		//@formatter:on
+
 		//@formatter:off
 		Option help = Option.builder("h").
 				argName("help").
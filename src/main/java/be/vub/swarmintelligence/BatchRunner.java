@@ -0,0 +1,178 @@
+package be.vub.swarmintelligence;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Solves a set of instances with a set of configurations inside a single JVM.
+ * Every (instance, configuration) pair is an independent job with its own
+ * solver, and therefore its own random stream and pheromone state. Jobs run
+ * on a bounded thread pool and their results are appended to a CSV file as
+ * soon as each one finishes.
+ *
+ */
+public class BatchRunner {
+	private final static Logger LOGGER = Logger.getLogger(BatchRunner.class);
+
+	private static final String HEADER = "instance,config,algorithm,seed,iterations,score,min,max,lowerbound,gap,millis,solution";
+
+	private final List<String> instances;
+	private final List<String> labels;
+	private final List<Map<String, Object>> configs;
+	private final int jobs;
+	private final String output;
+
+	/**
+	 * @param instances
+	 *            instance files to solve
+	 * @param labels
+	 *            description of each configuration, written in the results
+	 * @param configs
+	 *            configurations to solve every instance with. The instance
+	 *            entry is overwritten for each job
+	 * @param jobs
+	 *            number of jobs run concurrently
+	 * @param output
+	 *            CSV file receiving the results
+	 */
+	public BatchRunner(List<String> instances, List<String> labels, List<Map<String, Object>> configs, int jobs,
+			String output) {
+		this.instances = instances;
+		this.labels = labels;
+		this.configs = configs;
+		this.jobs = jobs;
+		this.output = output;
+	}
+
+	/**
+	 * Lists the instances of a batch: every regular, non hidden file of a
+	 * directory sorted by name, or the files listed in a manifest, one per line,
+	 * relative to the manifest's directory. Empty lines and lines starting with
+	 * '#' are ignored.
+	 * 
+	 * @param location
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<String> listInstances(String location) throws IOException {
+		Path path = Paths.get(location);
+		if (Files.isDirectory(path)) {
+			try (Stream<Path> files = Files.list(path)) {
+				return files.filter(Files::isRegularFile).filter(p -> !p.getFileName().toString().startsWith("."))
+						.map(Path::toString).sorted().collect(Collectors.toList());
+			}
+		}
+		Path base = path.toAbsolutePath().getParent();
+		List<String> instances = new ArrayList<>();
+		for (String line : readEntries(location)) {
+			instances.add(base.resolve(line).toString());
+		}
+		return instances;
+	}
+
+	/**
+	 * Non empty, non comment lines of a file, trimmed
+	 * 
+	 * @param location
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<String> readEntries(String location) throws IOException {
+		return Files.readAllLines(Paths.get(location), StandardCharsets.UTF_8).stream().map(String::trim)
+				.filter(l -> !l.isEmpty() && !l.startsWith("#")).collect(Collectors.toList());
+	}
+
+	public void run() throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(this.jobs);
+		CompletionService<String> results = new ExecutorCompletionService<>(executor);
+		int submitted = 0;
+		for (String instance : this.instances) {
+			for (int c = 0; c < this.configs.size(); c++) {
+				Map<String, Object> cfg = new HashMap<>(this.configs.get(c));
+				cfg.put("instance", instance);
+				// Iteration logs of concurrent jobs would only be noise
+				cfg.put("logiterations", false);
+				String label = this.labels.get(c);
+				results.submit(() -> this.solve(cfg, label));
+				submitted++;
+			}
+		}
+		LOGGER.info("Running " + submitted + " jobs on " + this.jobs + " threads");
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(this.output), StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			writer.flush();
+			for (int done = 1; done <= submitted; done++) {
+				String result;
+				try {
+					result = results.take().get();
+				} catch (ExecutionException e) {
+					// solve() reports its own failures, this is unexpected
+					result = null;
+					LOGGER.error("Job failed. Reason: " + e.getCause());
+				}
+				if (result != null) {
+					writer.write(result);
+					writer.newLine();
+					writer.flush();
+				}
+				LOGGER.info("Finished " + done + "/" + submitted + " jobs");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private String solve(Map<String, Object> cfg, String label) {
+		String instance = (String) cfg.get("instance");
+		long start = System.nanoTime();
+		try {
+			CSPSolver solver = App.createSolver(cfg);
+			solver.solve();
+			long millis = (System.nanoTime() - start) / 1000000;
+			return csv(new File(instance).getName(), label, cfg.get("algorithm"), cfg.get("seed"),
+					solver.getCurrentIter(), solver.getCurrentScore(), solver.getCurrentMinHammingDistance(),
+					solver.getCurrentMaxHammingDistance(), solver.getLowerBound(), solver.getOptimalityGap(), millis,
+					solver.getBestSolution());
+		} catch (Exception e) {
+			LOGGER.error("Job on " + instance + " with '" + label + "' failed. Reason: " + e.getMessage());
+			return csv(new File(instance).getName(), label, cfg.get("algorithm"), cfg.get("seed"), "", "", "", "",
+					"", "", "", "ERROR: " + e.getMessage());
+		}
+	}
+
+	private static String csv(Object... values) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			String value = String.valueOf(values[i]);
+			if (value.contains(",") || value.contains("\"") || value.contains(" ")) {
+				sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+			} else {
+				sb.append(value);
+			}
+		}
+		return sb.toString();
+	}
+
+}
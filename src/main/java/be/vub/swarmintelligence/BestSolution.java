@@ -0,0 +1,85 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Best solution found by a colony. The path is copied into a buffer of its
+ * own, allocated once, and only when a better solution is offered, so it does
+ * not change when the ants build their next solutions. Nothing but
+ * {@link #offer(Ant)} modifies it: the path handed out by
+ * {@link #getPath()} must be treated as read-only.
+ *
+ * Solutions are ranked by their maximum Hamming distance, the sum of
+ * distances breaking ties.
+ *
+ */
+public class BestSolution {
+
+	private final int[] path;
+	private long score;
+	// Empty until the first offer, worse than any solution
+	private long maxHammingDistance = Long.MAX_VALUE;
+	private long minHammingDistance;
+
+	public BestSolution(int strLength) {
+		this.path = new int[strLength];
+		this.score = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Lower maximum Hamming distance is better, the sum of distances breaks
+	 * ties
+	 * 
+	 * @param max
+	 * @param score
+	 * @param otherMax
+	 * @param otherScore
+	 * @return
+	 */
+	public static boolean isBetter(long max, long score, long otherMax, long otherScore) {
+		return max < otherMax || (max == otherMax && score < otherScore);
+	}
+
+	/**
+	 * Whether the solution of the given ant is better than this one
+	 * 
+	 * @param ant
+	 * @return
+	 */
+	public boolean isImprovedBy(Ant ant) {
+		return isBetter(ant.getMaxHammingDistance(), ant.getScore(), this.maxHammingDistance, this.score);
+	}
+
+	/**
+	 * Takes a copy of the solution of the given ant if it is better than this
+	 * one
+	 * 
+	 * @param ant
+	 * @return whether the solution was taken
+	 */
+	public boolean offer(Ant ant) {
+		if (!this.isImprovedBy(ant)) {
+			return false;
+		}
+		System.arraycopy(ant.getPath(), 0, this.path, 0, this.path.length);
+		this.score = ant.getScore();
+		this.maxHammingDistance = ant.getMaxHammingDistance();
+		this.minHammingDistance = ant.getMinHammingDistance();
+		return true;
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	public long getScore() {
+		return score;
+	}
+
+	public long getMaxHammingDistance() {
+		return maxHammingDistance;
+	}
+
+	public long getMinHammingDistance() {
+		return minHammingDistance;
+	}
+
+}
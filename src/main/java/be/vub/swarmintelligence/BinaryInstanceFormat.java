@@ -0,0 +1,120 @@
+package be.vub.swarmintelligence;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary format for instances, meant to be produced once from the
+ * text format and then loaded many times. All values are little endian:
+ * 
+ * <pre>
+ * int    magic ("CSPB")
+ * int    version
+ * int    alphabet length (k)
+ * int    number of strings (n)
+ * int    string length (L)
+ * int    bits per symbol
+ * char[k] alphabet
+ * ...    padding up to a multiple of 8 bytes
+ * long[] packed strings, see {@link PackedStrings}
+ * int[L*k] number of strings holding each symbol at each position
+ * </pre>
+ *
+ */
+public final class BinaryInstanceFormat {
+
+	public static final int MAGIC = 0x42505343;
+	public static final int VERSION = 1;
+	public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private BinaryInstanceFormat() {
+	}
+
+	/**
+	 * Whether the given file starts with the magic number of the format
+	 * 
+	 * @param fileLocation
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isBinary(String fileLocation) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(fileLocation))) {
+			return in.available() >= 4 && Integer.reverseBytes(in.readInt()) == MAGIC;
+		}
+	}
+
+	/**
+	 * Size of the header, alphabet included and padded to a multiple of 8
+	 * 
+	 * @param alphabetLength
+	 * @return
+	 */
+	static int headerSize(int alphabetLength) {
+		int size = 6 * Integer.BYTES + alphabetLength * Character.BYTES;
+		return (size + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+	}
+
+	/**
+	 * Number of strings holding each symbol at each position
+	 * 
+	 * @param problem
+	 * @return
+	 */
+	private static int[] countSymbols(CSPProblem problem) {
+		byte[] columns = problem.getColumnSymbols();
+		int numStr = problem.getNumStr();
+		int alphabetLength = problem.getAlphabetLength();
+		int[] counts = new int[problem.getStrLength() * alphabetLength];
+		for (int j = 0; j < problem.getStrLength(); j++) {
+			for (int s = j * numStr; s < (j + 1) * numStr; s++) {
+				counts[j * alphabetLength + (columns[s] & 0xFF)]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Writes the given problem in the binary format
+	 * 
+	 * @param problem
+	 * @param fileLocation
+	 * @throws IOException
+	 */
+	public static void write(CSPProblem problem, String fileLocation) throws IOException {
+		PackedStrings packed = problem.getPackedStrings();
+		int alphabetLength = problem.getAlphabetLength();
+		int[] counts = problem.getSymbolCounts() != null ? problem.getSymbolCounts() : countSymbols(problem);
+		long[] words = packed.getWords();
+		long size = headerSize(alphabetLength) + (long) words.length * Long.BYTES
+				+ (long) counts.length * Integer.BYTES;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Instance too large for the binary format");
+		}
+		try (FileChannel fc = FileChannel.open(Paths.get(fileLocation), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = fc.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ORDER);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(alphabetLength);
+			buffer.putInt(problem.getNumStr());
+			buffer.putInt(problem.getStrLength());
+			buffer.putInt(packed.getBitsPerSymbol());
+			for (Character symbol : problem.getAlphabet()) {
+				buffer.putChar(symbol);
+			}
+			buffer.position(headerSize(alphabetLength));
+			buffer.asLongBuffer().put(words);
+			buffer.position(buffer.position() + words.length * Long.BYTES);
+			buffer.asIntBuffer().put(counts);
+			buffer.force();
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads an instance stored in the {@link BinaryInstanceFormat}. The file is
+ * memory mapped and its sections are bulk copied into the primitive arrays
+ * used by the solvers: the packed strings are used as they are and the symbol
+ * counts provide the heuristic information, so nothing has to be parsed or
+ * recomputed.
+ *
+ */
+public class BinaryInstanceLoader {
+
+	private final String fileLocation;
+
+	private int alphabetLength;
+	private int numStr;
+	private int strLength;
+	private List<Character> alphabet;
+	private PackedStrings packedStrings;
+	private int[] symbolCounts;
+
+	public BinaryInstanceLoader(String fileLocation) {
+		this.fileLocation = fileLocation;
+	}
+
+	public void load() throws IOException {
+		try (FileChannel fc = FileChannel.open(Paths.get(this.fileLocation), StandardOpenOption.READ)) {
+			if (fc.size() > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Binary instance too large to be mapped");
+			}
+			MappedByteBuffer buffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+			buffer.order(BinaryInstanceFormat.ORDER);
+			if (fc.size() < BinaryInstanceFormat.headerSize(0) || buffer.getInt() != BinaryInstanceFormat.MAGIC) {
+				throw new IllegalStateException(this.fileLocation + " is not a binary instance");
+			}
+			int version = buffer.getInt();
+			if (version != BinaryInstanceFormat.VERSION) {
+				throw new IllegalStateException("Unsupported binary instance version " + version);
+			}
+			this.alphabetLength = buffer.getInt();
+			this.numStr = buffer.getInt();
+			this.strLength = buffer.getInt();
+			int bitsPerSymbol = buffer.getInt();
+			// Checked before anything is sized from them, so that a corrupt
+			// header cannot trigger a huge allocation
+			if (this.alphabetLength < 1 || this.alphabetLength > 256 || this.numStr < 1 || this.strLength < 1) {
+				throw new IllegalStateException("Invalid binary instance header: alphabet length "
+						+ this.alphabetLength + ", " + this.numStr + " strings of length " + this.strLength);
+			}
+			if (bitsPerSymbol != PackedStrings.bitsPerSymbol(this.alphabetLength)) {
+				throw new IllegalStateException("Unexpected packing of " + bitsPerSymbol + " bits per symbol");
+			}
+			long numWords = (long) this.numStr * PackedStrings.wordsPerString(this.strLength, this.alphabetLength);
+			long numCounts = (long) this.strLength * this.alphabetLength;
+			long expected = BinaryInstanceFormat.headerSize(this.alphabetLength) + numWords * Long.BYTES
+					+ numCounts * Integer.BYTES;
+			if (fc.size() != expected) {
+				throw new IllegalStateException("Binary instance should have " + expected + " bytes but has "
+						+ fc.size());
+			}
+			this.alphabet = new ArrayList<>(this.alphabetLength);
+			for (int i = 0; i < this.alphabetLength; i++) {
+				this.alphabet.add(buffer.getChar());
+			}
+			// Both fit in an int, as the file does
+			long[] words = new long[(int) numWords];
+			this.symbolCounts = new int[(int) numCounts];
+			buffer.position(BinaryInstanceFormat.headerSize(this.alphabetLength));
+			buffer.asLongBuffer().get(words);
+			buffer.position(buffer.position() + words.length * Long.BYTES);
+			buffer.asIntBuffer().get(this.symbolCounts);
+			this.packedStrings = new PackedStrings(words, this.numStr, this.strLength, this.alphabetLength);
+		}
+	}
+
+	public int getAlphabetLength() {
+		return alphabetLength;
+	}
+
+	public int getNumStr() {
+		return numStr;
+	}
+
+	public int getStrLength() {
+		return strLength;
+	}
+
+	public List<Character> getAlphabet() {
+		return alphabet;
+	}
+
+	public PackedStrings getPackedStrings() {
+		return packedStrings;
+	}
+
+	/**
+	 * Number of strings holding each symbol at each position, the symbol i of
+	 * the position j being at <code>j * alphabetLength + i</code>
+	 * 
+	 * @return
+	 */
+	public int[] getSymbolCounts() {
+		return symbolCounts;
+	}
+
+}
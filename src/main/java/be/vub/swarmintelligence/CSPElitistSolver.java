@@ -3,7 +3,6 @@ package be.vub.swarmintelligence;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 
@@ -11,9 +10,11 @@ public class CSPElitistSolver extends CSPSolver {
 
 	private final static Logger LOGGER = Logger.getLogger(CSPElitistSolver.class);
 
-	private Ant bestAnt;
+	private BestSolution globalBest;
+	private Ant iterationBestAnt;
 
 	private Double epsilon;
+	private DepositStrategy depositStrategy;
 
 	public CSPElitistSolver(Map<String, Object> cfg) throws IOException {
 		super(cfg);
@@ -25,30 +26,38 @@ public class CSPElitistSolver extends CSPSolver {
 	 */
 	@Override
 	protected void solveColony() {
-
-		// ants.parallelStream().
-
-		for (Ant ant : this.ants) {
-			ant.findSolution(this.probability, this.problem.getAlphabet());
-			ant.evaluateSolution(this.problem.getStrings());
-			if (this.bestAnt.getMaxHammingDistance() > ant.getMaxHammingDistance()) {
-				this.bestAnt = ant;
+		this.constructSolutions();
+		// Reduction done sequentially in the ants' order to keep it race-free
+		// and reproducible
+		this.iterationBestAnt = this.ants.get(0);
+		for (int a = 0; a < this.ants.size(); a++) {
+			Ant ant = this.ants.get(a);
+			if (BestSolution.isBetter(ant.getMaxHammingDistance(), ant.getScore(),
+					this.iterationBestAnt.getMaxHammingDistance(), this.iterationBestAnt.getScore())) {
+				this.iterationBestAnt = ant;
 			}
 		}
+		this.applyLocalSearch(this.iterationBestAnt);
+		this.globalBest.offer(this.iterationBestAnt);
+		this.mark(IterationMetrics.EVALUATION);
 		this.updatePheromone();
+		this.mark(IterationMetrics.PHEROMONE);
 		this.updateProbability();
 //		LOGGER.debug(this.printPheromone());
-		this.normalizeProbability();
+		this.updateSampler();
+		this.mark(IterationMetrics.PROBABILITY);
 	}
 
 	private String printPheromone() {
 		StringBuilder sb = new StringBuilder();
 		sb.append('[');
-		this.heuristicPheromone.stream().forEach(ls -> {
+		for (int j = 0; j < this.problem.getStrLength(); j++) {
 			sb.append('[');
-			ls.stream().forEach(v -> sb.append(v.getPheromoneValue() + ", "));
+			for (int i = 0; i < this.problem.getAlphabetLength(); i++) {
+				sb.append(this.heuristicPheromone.getPheromoneValue(j, i) + ", ");
+			}
 			sb.append("]");
-		});
+		}
 		sb.append("]\n");
 		return sb.toString();
 	}
@@ -57,65 +66,76 @@ public class CSPElitistSolver extends CSPSolver {
 	public void initAnts() {
 		this.ants = new ArrayList<>();
 		for (int i = 0; i < this.numAnts; i++) {
-			this.ants.add(new Ant());
+			this.ants.add(new Ant(this.randUtils.split()));
 		}
-		this.bestAnt = this.ants.get(0);
+		this.globalBest = new BestSolution(this.problem.getStrLength());
 		this.solveColony();
 	}
 
 	@Override
-	protected Long getCurrentScore() {
-		return this.bestAnt.getScore();
+	protected long getCurrentScore() {
+		return this.globalBest.getScore();
 	}
 
 	@Override
-	protected Long getCurrentMinHammingDistance() {
-		return this.bestAnt.getMinHammingDistance();
+	protected long getCurrentMinHammingDistance() {
+		return this.globalBest.getMinHammingDistance();
 	}
 
 	@Override
-	protected Long getCurrentMaxHammingDistance() {
-		return this.bestAnt.getMaxHammingDistance();
+	protected long getCurrentMaxHammingDistance() {
+		return this.globalBest.getMaxHammingDistance();
 	}
 
-	/**
-	 * Update the pheromone value using an additional increased based on the
-	 * solution given by the best ant
-	 */
 	@Override
-	public void updatePheromone() {
-		for (int j = 0; j < this.problem.getStrLength(); j++) {
-			for (int i = 0; i < this.problem.getAlphabetLength(); i++) {
-				Double pherVal = (1.0 - this.rho) * this.heuristicPheromone.get(j).get(i).getPheromoneValue();
-				if (this.bestAnt.getPath().get(j) == i) {
-					pherVal += this.epsilon * 1.0 / (double) this.getCurrentMaxHammingDistance();
-				}
-				this.heuristicPheromone.get(j).get(i).setPheromoneValue(pherVal);
-			}
-		}
+	protected int[] getCurrentBestPath() {
+		return this.globalBest.getPath();
+	}
 
+	@Override
+	protected void acceptSolution(int[] path) {
+		this.globalBest.offer(this.evaluatePath(path));
+	}
+
+	@Override
+	protected long[] getAlgorithmState() {
+		// The iteration best is rebuilt before it is used again
+		return new long[0];
+	}
+
+	@Override
+	protected void restoreAlgorithmState(long[] state) {
 	}
 
 	/**
-	 * Updates the probability list using the values for pheromone and heuristic
-	 * information
+	 * Update the pheromone value using an additional increased based on the
+	 * solution given by the global or the iteration best, depending on the
+	 * deposit strategy
 	 */
-	public void updateProbability() {
-		for (int j = 0; j < this.problem.getStrLength(); j++) {
-			Double denominator = this.heuristicPheromone.get(j).stream()
-					.mapToDouble(hp -> hp.getPheromoneValue() * Math.pow(hp.getHeuristicInformationValue(), this.alpha))
-					.sum();
-			for (int i = 0; i < this.problem.getAlphabetLength(); i++) {
-				Double value = heuristicPheromone.get(j).get(i).getPheromoneValue()
-						* Math.pow(heuristicPheromone.get(j).get(i).getHeuristicInformationValue(), this.alpha)
-						/ denominator;
-				this.probability.get(j).set(i, value);
-			}
+	@Override
+	public void updatePheromone() {
+		double deposit;
+		int[] path;
+		if (this.depositStrategy == DepositStrategy.ITERATION) {
+			deposit = this.epsilon / (double) Math.max(1l, this.iterationBestAnt.getMaxHammingDistance());
+			path = this.iterationBestAnt.getPath();
+		} else {
+			deposit = this.epsilon / (double) Math.max(1l, this.globalBest.getMaxHammingDistance());
+			path = this.globalBest.getPath();
+		}
+		// Evaporation is lazy, only the reinforced cells are written
+		this.heuristicPheromone.evaporate(1.0 - this.rho);
+		int numActive = this.numActivePositions();
+		for (int a = 0; a < numActive; a++) {
+			int j = this.activePosition(a);
+			this.heuristicPheromone.depositPheromone(j, path[j], deposit);
 		}
+		this.sampler.reinforced(path);
 	}
 
 	@Override
 	protected void loadAdditionalParameters() {
 		this.epsilon = (Double) this.cfg.get("epsilon");
+		this.depositStrategy = (DepositStrategy) this.cfg.getOrDefault("deposit", DepositStrategy.GLOBAL);
 	}
 }
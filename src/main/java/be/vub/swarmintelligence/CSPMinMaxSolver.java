@@ -1,61 +1,207 @@
 package be.vub.swarmintelligence;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Map;
 
+import org.apache.log4j.Logger;
+
+/**
+ * MAX-MIN Ant System for the closest string problem. Only one ant deposits
+ * pheromone on each iteration, either the iteration best or the global best,
+ * and every trail is kept within [tauMin, tauMax]. When the global best has
+ * not improved for a number of iterations the trails are reinitialised to
+ * tauMax.
+ *
+ */
 public class CSPMinMaxSolver extends CSPSolver {
 
+	private final static Logger LOGGER = Logger.getLogger(CSPMinMaxSolver.class);
+
+	private Ant iterationBestAnt;
+
+	private BestSolution globalBest;
+
+	private double tauMax;
+	private double tauMin;
+
+	// Probability of building the best solution once the trails converged,
+	// used to derive tauMin
+	private Double pBest;
+	// The global best deposits pheromone once every gbFrequency iterations
+	private Integer gbFrequency;
+	// Iterations without improvement before the trails are reinitialised
+	private Integer restartIterations;
+	private int iterationsSinceImprovement;
+
 	public CSPMinMaxSolver(Map<String, Object> cfg) throws IOException {
 		super(cfg);
 	}
 
 	@Override
 	public void initAnts() {
-		// TODO Auto-generated method stub
-		
+		this.ants = new ArrayList<>();
+		for (int i = 0; i < this.numAnts; i++) {
+			this.ants.add(new Ant(this.randUtils.split()));
+		}
+		this.globalBest = new BestSolution(this.problem.getStrLength());
+		// First colony on uniform probabilities, used to estimate the trail
+		// limits before the trails are set to tauMax
+		this.constructSolutions();
+		this.updateBest();
+		this.heuristicPheromone.fillPheromone(this.tauMax);
+		this.updateProbability();
+		this.updateSampler();
 	}
 
 	@Override
-	public void updatePheromone() {
-		// TODO Auto-generated method stub
-		
+	protected void solveColony() {
+		this.constructSolutions();
+		this.updateBest();
+		this.mark(IterationMetrics.EVALUATION);
+		this.updatePheromone();
+		if (this.iterationsSinceImprovement >= this.restartIterations) {
+			LOGGER.debug("No improvement in " + this.iterationsSinceImprovement
+					+ " iterations. Reinitialising pheromone trails");
+			this.heuristicPheromone.fillPheromone(this.tauMax);
+			this.sampler.reset();
+			this.unfreezePositions();
+			this.iterationsSinceImprovement = 0;
+		}
+		this.mark(IterationMetrics.PHEROMONE);
+		this.updateProbability();
+		this.updateSampler();
+		this.mark(IterationMetrics.PROBABILITY);
+	}
+
+	/**
+	 * Finds the iteration best ant and keeps a copy of it when it improves the
+	 * global best, updating the trail limits accordingly
+	 */
+	private void updateBest() {
+		this.iterationBestAnt = this.ants.get(0);
+		for (int a = 0; a < this.ants.size(); a++) {
+			Ant ant = this.ants.get(a);
+			if (BestSolution.isBetter(ant.getMaxHammingDistance(), ant.getScore(),
+					this.iterationBestAnt.getMaxHammingDistance(), this.iterationBestAnt.getScore())) {
+				this.iterationBestAnt = ant;
+			}
+		}
+		this.applyLocalSearch(this.iterationBestAnt);
+		if (this.globalBest.offer(this.iterationBestAnt)) {
+			this.iterationsSinceImprovement = 0;
+			this.updateTrailLimits();
+		} else {
+			this.iterationsSinceImprovement++;
+		}
 	}
 
 	@Override
-	public void updateProbability() {
-		// TODO Auto-generated method stub
-		
+	protected void acceptSolution(int[] path) {
+		this.globalBest.offer(this.evaluatePath(path));
+		this.iterationsSinceImprovement = 0;
+		this.updateTrailLimits();
 	}
 
 	@Override
-	protected void solveColony() {
-		// TODO Auto-generated method stub
-		
+	protected long[] getAlgorithmState() {
+		return new long[] { this.iterationsSinceImprovement };
+	}
+
+	@Override
+	protected void restoreAlgorithmState(long[] state) {
+		this.iterationsSinceImprovement = (int) state[0];
+	}
+
+	private void updateTrailLimits() {
+		this.tauMax = this.deposit(this.globalBest.getMaxHammingDistance()) / this.rho;
+		double pDec = Math.pow(this.pBest, 1.0 / this.problem.getStrLength());
+		double avg = Math.max(this.problem.getAlphabetLength() / 2.0 - 1.0, 1.0);
+		this.tauMin = Math.min(this.tauMax, this.tauMax * (1.0 - pDec) / (avg * pDec));
+	}
+
+	private double deposit(long maxHammingDistance) {
+		return 1.0 / (double) Math.max(1l, maxHammingDistance);
 	}
 
+	/**
+	 * Evaporates every trail, reinforces the path of the iteration best or, on
+	 * the scheduled iterations, the global best solution and clamps the result
+	 * to [tauMin, tauMax] in the same pass
+	 */
 	@Override
-	protected Long getCurrentScore() {
-		// TODO Auto-generated method stub
-		return null;
+	public void updatePheromone() {
+		int[] path;
+		double deposit;
+		if (this.currentIter % this.gbFrequency == 0) {
+			path = this.globalBest.getPath();
+			deposit = this.deposit(this.globalBest.getMaxHammingDistance());
+		} else {
+			path = this.iterationBestAnt.getPath();
+			deposit = this.deposit(this.iterationBestAnt.getMaxHammingDistance());
+		}
+		// Clamping has to visit every trail anyway, so evaporation is applied
+		// eagerly in the same sweep
+		this.heuristicPheromone.normalizePheromone();
+		double[] pheromone = this.heuristicPheromone.getPheromoneValues();
+		double evaporation = 1.0 - this.rho;
+		int numActive = this.numActivePositions();
+		for (int a = 0; a < numActive; a++) {
+			int j = this.activePosition(a);
+			int offset = this.heuristicPheromone.offset(j);
+			int chosen = offset + path[j];
+			for (int i = offset; i < offset + this.problem.getAlphabetLength(); i++) {
+				double value = evaporation * pheromone[i] + (i == chosen ? deposit : 0.0);
+				pheromone[i] = Math.min(this.tauMax, Math.max(this.tauMin, value));
+			}
+		}
+		// Clamping keeps the ranking of the evaporated trails as well
+		this.sampler.reinforced(path);
+	}
+
+	/**
+	 * Upper limit of the trails, derived from the global best
+	 * 
+	 * @return
+	 */
+	double getTauMax() {
+		return tauMax;
+	}
+
+	/**
+	 * Lower limit of the trails, derived from tauMax and pBest
+	 * 
+	 * @return
+	 */
+	double getTauMin() {
+		return tauMin;
 	}
 
 	@Override
-	protected Long getCurrentMinHammingDistance() {
-		// TODO Auto-generated method stub
-		return null;
+	protected long getCurrentScore() {
+		return this.globalBest.getScore();
 	}
 
 	@Override
-	protected Long getCurrentMaxHammingDistance() {
-		// TODO Auto-generated method stub
-		return null;
+	protected long getCurrentMinHammingDistance() {
+		return this.globalBest.getMinHammingDistance();
 	}
 
 	@Override
-	protected void loadAdditionalParameters() {
-		// TODO Auto-generated method stub
-		
+	protected long getCurrentMaxHammingDistance() {
+		return this.globalBest.getMaxHammingDistance();
+	}
+
+	@Override
+	protected int[] getCurrentBestPath() {
+		return this.globalBest.getPath();
 	}
 
+	@Override
+	protected void loadAdditionalParameters() {
+		this.pBest = (Double) this.cfg.getOrDefault("pbest", 0.05);
+		this.gbFrequency = (Integer) this.cfg.getOrDefault("gbfrequency", 5);
+		this.restartIterations = (Integer) this.cfg.getOrDefault("restart", 250);
+	}
 
 }
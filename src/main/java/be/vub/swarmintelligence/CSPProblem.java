@@ -1,29 +1,40 @@
 package be.vub.swarmintelligence;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.log4j.Logger;
 
 public class CSPProblem implements Problem {
 	private final static Logger LOGGER = Logger.getLogger(CSPProblem.class);
-	
-	private List<String> strings;
+
 	private List<Character> alphabet;
 	private Integer alphabetLength;
 	private Integer numStr;
 	private Integer strLength;
 	private Map<Character, Integer> inverseAlphabet;
+	// Symbol index of every position of every string, one string after the
+	// other. Unpacked on first use for binary instances
+	private byte[] symbols;
+	// Same symbols stored position after position, so that all the strings can
+	// be walked for a single position. Built on first use
+	private byte[] columnSymbols;
+	private PackedStrings packedStrings;
+	// Number of strings holding each symbol at each position. Only available
+	// when loaded from a binary instance
+	private int[] symbolCounts;
+	// Computed on first use, negative until then
+	private long lowerBound = -1l;
 
 	public CSPProblem(String fileLocation) throws IOException {
 		this.initInternalStructures();
 		this.loadInputData(fileLocation);
 		this.computeInverseAlphabet();
+		this.encodeStrings();
 		LOGGER.debug("Problem properly loaded from input file!");
 	}
 
@@ -35,41 +46,62 @@ public class CSPProblem implements Problem {
 	}
 
 	/**
-	 * Loads input data from provided instances following the specified format
+	 * Builds the bit-packed copy of the symbol matrix used by the solvers. The
+	 * byte per symbol copies are only built when asked for, see
+	 * {@link #getSymbols()} and {@link #getColumnSymbols()}, so that loading a
+	 * binary instance does not walk every symbol.
 	 */
-	public void loadInputData(String fileLocation) throws IOException {
-		FileReader fr = new FileReader(fileLocation);
-		BufferedReader bufr = new BufferedReader(fr);
-
-		int count = 0;
-		String line = bufr.readLine();
-		while (line != null) {
-			if (count == 0) {
-				this.alphabetLength = Integer.valueOf(line.trim());
-			} else if (count == 1) {
-				this.numStr = Integer.valueOf(line.trim());
-			} else if (count == 2) {
-				this.strLength = Integer.valueOf(line.trim());
-			} else if (count <= this.alphabetLength + 2) {
-				this.alphabet.add(line.trim().charAt(0));
-			} else if (!line.trim().isEmpty()) {
-				this.strings.add(line.trim());
-			}
-			line = bufr.readLine();
-			count++;
+	private void encodeStrings() {
+		if (this.packedStrings == null) {
+			this.packedStrings = new PackedStrings(this.symbols, this.numStr, this.strLength, this.alphabetLength);
 		}
-		bufr.close();
+	}
 
+	/**
+	 * Loads input data from provided instances following the specified format.
+	 * Text files are memory mapped and the strings are stored directly as
+	 * symbol indexes, see {@link MappedInstanceLoader}. Files in the
+	 * {@link BinaryInstanceFormat} are loaded as they are.
+	 */
+	public void loadInputData(String fileLocation) throws IOException {
+		if (BinaryInstanceFormat.isBinary(fileLocation)) {
+			BinaryInstanceLoader loader = new BinaryInstanceLoader(fileLocation);
+			loader.load();
+			this.alphabetLength = loader.getAlphabetLength();
+			this.numStr = loader.getNumStr();
+			this.strLength = loader.getStrLength();
+			this.alphabet.addAll(loader.getAlphabet());
+			this.packedStrings = loader.getPackedStrings();
+			this.symbolCounts = loader.getSymbolCounts();
+		} else {
+			MappedInstanceLoader loader = new MappedInstanceLoader(fileLocation);
+			loader.load();
+			this.alphabetLength = loader.getAlphabetLength();
+			this.numStr = loader.getNumStr();
+			this.strLength = loader.getStrLength();
+			this.alphabet.addAll(loader.getAlphabet());
+			this.symbols = loader.getSymbols();
+		}
 	}
 
 	public void initInternalStructures() {
-		strings = new ArrayList<>();
 		alphabet = new ArrayList<>();
 
 	}
 
-	public List<String> getStrings() {
-		return strings;
+	/**
+	 * Decodes the string with the given index. Only meant for reporting, the
+	 * solvers work on the encoded symbols.
+	 * 
+	 * @param idx
+	 * @return
+	 */
+	public String getString(int idx) {
+		StringBuilder sb = new StringBuilder(this.strLength);
+		for (int j = 0; j < this.strLength; j++) {
+			sb.append(this.alphabet.get(this.packedStrings.symbol(idx, j)));
+		}
+		return sb.toString();
 	}
 
 	public List<Character> getAlphabet() {
@@ -92,4 +124,70 @@ public class CSPProblem implements Problem {
 		return inverseAlphabet;
 	}
 
+	/**
+	 * Symbol index of every position of every string, the position j of the
+	 * string s being at <code>s * strLength + j</code>. Unpacked on the first
+	 * call for binary instances.
+	 * 
+	 * @return
+	 */
+	public synchronized byte[] getSymbols() {
+		if (this.symbols == null) {
+			this.symbols = new byte[this.numStr * this.strLength];
+			this.packedStrings.unpack(this.symbols);
+		}
+		return symbols;
+	}
+
+	/**
+	 * Symbol index of every position of every string, the position j of the
+	 * string s being at <code>j * numStr + s</code>. Built on the first call,
+	 * only local search and the heuristic of text instances need it.
+	 * 
+	 * @return
+	 */
+	public synchronized byte[] getColumnSymbols() {
+		if (this.columnSymbols == null) {
+			byte[] symbols = this.getSymbols();
+			this.columnSymbols = new byte[this.numStr * this.strLength];
+			for (int s = 0; s < this.numStr; s++) {
+				for (int j = 0; j < this.strLength; j++) {
+					this.columnSymbols[j * this.numStr + s] = symbols[s * this.strLength + j];
+				}
+			}
+		}
+		return columnSymbols;
+	}
+
+	/**
+	 * Lower bound on the maximum Hamming distance of any solution, see
+	 * {@link LowerBound}. Computed on the first call only, so that the
+	 * colonies sharing an instance do not compute it again.
+	 * 
+	 * @param pool
+	 *            pool for the pairwise distances, may be null
+	 * @return
+	 */
+	public synchronized long getLowerBound(ForkJoinPool pool) {
+		if (this.lowerBound < 0) {
+			this.lowerBound = LowerBound.compute(this, pool);
+		}
+		return lowerBound;
+	}
+
+	public PackedStrings getPackedStrings() {
+		return packedStrings;
+	}
+
+	/**
+	 * Number of strings holding each symbol at each position, the symbol i of
+	 * the position j being at <code>j * alphabetLength + i</code>. Null unless
+	 * the problem was loaded from a binary instance.
+	 * 
+	 * @return
+	 */
+	public int[] getSymbolCounts() {
+		return symbolCounts;
+	}
+
 }
@@ -4,7 +4,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import org.apache.log4j.Logger;
 
@@ -17,25 +19,99 @@ public abstract class CSPSolver implements Solver {
 	protected Double rho;
 	protected Integer numAnts;
 	protected Integer maxIter;
-	protected Integer currentIter;
+	protected int currentIter;
+	protected Integer numThreads;
+	protected TerminationCriterion termination;
+	// Start of the construction, from which the time budget is counted
+	private final long createdNanos;
+	protected Boolean logIterations;
+	// No solution can have a lower maximum Hamming distance
+	protected long lowerBound;
 	protected List<Ant> ants;
 
+	/**
+	 * Random stream of this solver, seeded from the configuration. Ants and
+	 * workers get their own streams split from it.
+	 */
+	protected RandomUtils randUtils;
+
+	/**
+	 * Pool used to build the ants' solutions in parallel. Null when the colony
+	 * runs on a single thread.
+	 */
+	protected ForkJoinPool pool;
+
 	protected CSPProblem problem;
 
-	protected List<List<Double>> probability;
-	protected List<List<HeuristicPheromone>> heuristicPheromone;
+	/**
+	 * Local search applied to the best ant of every iteration. Null when
+	 * disabled.
+	 */
+	protected LocalSearch localSearch;
+	protected HammingEvaluator evaluator;
+
+	/**
+	 * Per-iteration measurements. Null when disabled, in which case nothing is
+	 * measured.
+	 */
+	protected IterationMetrics metrics;
+	private MetricsExporter metricsExporter;
+
+	/**
+	 * Called at the end of every iteration. Null when nobody listens.
+	 */
+	private IterationListener iterationListener;
+
+	/**
+	 * Writes a checkpoint every checkpointInterval iterations. Null when
+	 * disabled.
+	 */
+	private CheckpointWriter checkpointWriter;
+	private Integer checkpointInterval;
+
+	protected DoubleMatrix probability;
+	protected HeuristicPheromoneMatrix heuristicPheromone;
+	protected Sampler sampler;
+
+	/**
+	 * Positions still being decided. Null when converged positions are never
+	 * frozen, in which case every position is always active.
+	 */
+	protected ActivePositions positions;
+	// Probability from which a symbol settles its position
+	private Double freezeThreshold;
+	// Iterations between unfreezing every position, 0 for never
+	private Integer unfreezeInterval;
+
+	// Per-ant steps, created once so that iterating does not allocate them
+	private final Consumer<Ant> findSolution = this::findSolution;
+	private final Consumer<Ant> evaluateSolution = ant -> ant.evaluateSolution(this.problem.getPackedStrings());
+	private final Consumer<Ant> constructSolution = this::constructSolution;
 
 	public CSPSolver(Map<String, Object> cfg) throws IOException {
+		this.createdNanos = System.nanoTime();
 		this.cfg = cfg;
+		this.randUtils = new RandomUtils((Integer) this.cfg.get("seed"));
 		this.initProblem();
 		this.alpha = (Double) this.cfg.get("alpha");
-		this.beta = (Double) this.cfg.get("beta");
+		this.beta = (Double) this.cfg.getOrDefault("beta", 1.0);
 		this.rho = (Double) this.cfg.get("rho");
 		this.numAnts = (Integer) this.cfg.get("numants");
 		this.maxIter = (Integer) this.cfg.get("maxiter");
 		this.currentIter = 0;
+		this.logIterations = (Boolean) this.cfg.getOrDefault("logiterations", true);
+		this.numThreads = (Integer) this.cfg.getOrDefault("threads", 1);
+		if (this.numThreads > 1) {
+			this.pool = new ForkJoinPool(this.numThreads);
+		}
+		this.initLowerBound();
+		this.initTermination();
+		this.initLocalSearch();
+		this.initMetrics();
+		this.initCheckpoint();
 		this.loadAdditionalParameters();
 		this.initHeuristicPheromone();
+		this.initPositions();
 		this.initProbability();
 		this.initAnts();
 
@@ -44,42 +120,137 @@ public abstract class CSPSolver implements Solver {
 
 	@Override
 	public void initProblem() throws IOException {
+		// Colonies of an island model share the instance loaded once
+		if (this.cfg.get("problem") != null) {
+			this.problem = (CSPProblem) this.cfg.get("problem");
+			return;
+		}
 		this.problem = new CSPProblem((String) this.cfg.get("instance"));
 	}
 
 
+	private void initLowerBound() {
+		long start = System.nanoTime();
+		this.lowerBound = this.problem.getLowerBound(this.pool);
+		LOGGER.debug("Lower bound " + this.lowerBound + " obtained in " + (System.nanoTime() - start) / 1000000
+				+ " ms");
+	}
+
+	/**
+	 * Builds the termination criterion from the configuration. The maximum
+	 * number of iterations always applies, as does reaching the lower bound,
+	 * which proves the solution optimal. The time budget, counted from the
+	 * start of the construction so that loading the instance is included,
+	 * target score and stagnation limit are added when configured.
+	 */
+	private void initTermination() {
+		List<TerminationCriterion> criteria = new ArrayList<>();
+		criteria.add(new MaxIterationsCriterion(this.maxIter));
+		criteria.add(new TargetScoreCriterion(this.lowerBound));
+		if (this.cfg.get("timelimit") != null) {
+			criteria.add(new TimeBudgetCriterion((Integer) this.cfg.get("timelimit") * 1000000l, this.createdNanos));
+		}
+		if (this.cfg.get("target") != null) {
+			criteria.add(new TargetScoreCriterion((Integer) this.cfg.get("target")));
+		}
+		if (this.cfg.get("stagnation") != null) {
+			criteria.add(new StagnationCriterion((Integer) this.cfg.get("stagnation")));
+		}
+		this.termination = CompositeCriterion.anyOf(criteria);
+	}
+
+	private void initMetrics() throws IOException {
+		String location = (String) this.cfg.get("metrics");
+		if (location == null) {
+			return;
+		}
+		this.metrics = new IterationMetrics(1024);
+		this.metricsExporter = new MetricsExporter(this.metrics, location,
+				"json".equalsIgnoreCase((String) this.cfg.get("metricsformat")));
+	}
+
+	private void initCheckpoint() {
+		String location = (String) this.cfg.get("checkpoint");
+		if (location == null) {
+			return;
+		}
+		this.checkpointWriter = new CheckpointWriter(location);
+		this.checkpointInterval = (Integer) this.cfg.getOrDefault("checkpointinterval", 1000);
+	}
+
+	private void initPositions() {
+		this.freezeThreshold = (Double) this.cfg.getOrDefault("freeze", 0.0);
+		this.unfreezeInterval = (Integer) this.cfg.getOrDefault("unfreeze", 0);
+		if (this.freezeThreshold > 0.0) {
+			this.positions = new ActivePositions(this.problem.getStrLength());
+		}
+	}
+
+	private void initLocalSearch() {
+		if (!(Boolean) this.cfg.getOrDefault("localsearch", false)) {
+			return;
+		}
+		LocalSearchMode mode = (LocalSearchMode) this.cfg.getOrDefault("lsmode", LocalSearchMode.FIRST);
+		// By default one sweep over the whole neighbourhood at most
+		Integer maxMoves = (Integer) this.cfg.getOrDefault("lsmoves",
+				this.problem.getStrLength() * this.problem.getAlphabetLength());
+		Integer maxMillis = (Integer) this.cfg.getOrDefault("lstime", 0);
+		this.localSearch = new FlipLocalSearch(mode, maxMoves, maxMillis * 1000000l);
+		this.evaluator = new HammingEvaluator(this.problem);
+	}
+
 	/**
 	 * Initialises the structure that contains both the pheromone and heuristic
 	 * information together for faster computations
 	 */
 	public void initHeuristicPheromone() {
-		this.heuristicPheromone = new ArrayList<>();
-		for (int i = 0; i < this.problem.getStrLength(); i++) {
-			this.heuristicPheromone.add(auxInitHeuristicPheromone(i));
+		long start = System.nanoTime();
+		this.heuristicPheromone = new HeuristicPheromoneMatrix(this.problem.getStrLength(),
+				this.problem.getAlphabetLength());
+		this.heuristicPheromone.fillPheromone(1.0 / this.problem.getAlphabetLength());
+		int strLength = this.problem.getStrLength();
+		if (this.problem.getSymbolCounts() != null) {
+			// Precomputed in binary instances
+			int[] counts = this.problem.getSymbolCounts();
+			double[] heuristic = this.heuristicPheromone.getHeuristicInformationValues();
+			for (int i = 0; i < counts.length; i++) {
+				heuristic[i] = counts[i];
+			}
+		} else if (this.pool == null) {
+			this.auxInitHeuristicPheromone(0, strLength);
+		} else {
+			// A few ranges per thread to balance the load
+			int chunk = Math.max(1, (strLength + this.numThreads * 4 - 1) / (this.numThreads * 4));
+			int numChunks = (strLength + chunk - 1) / chunk;
+			this.pool.submit(() -> IntStream.range(0, numChunks).parallel()
+					.forEach(c -> this.auxInitHeuristicPheromone(c * chunk, Math.min(strLength, (c + 1) * chunk))))
+					.join();
 		}
+		this.heuristicPheromone.invalidateHeuristicPowers();
+		LOGGER.debug("Heuristic information computed in " + (System.nanoTime() - start) / 1000000 + " ms");
 	}
 
 	/**
-	 * Auxiliary function to set the values of heuristic information and
-	 * probability for the required positions for the strings' length
-	 * corresponding to the different values of the alphabet
+	 * Auxiliary function to set the values of heuristic information for a range
+	 * of positions of the strings: the number of strings holding each symbol
+	 * of the alphabet at each position. Counted in a single pass over the
+	 * encoded symbols of every position, whatever the size of the alphabet.
 	 * 
-	 * @param alphIdx
-	 * @return
+	 * @param from
+	 *            first position, inclusive
+	 * @param to
+	 *            last position, exclusive
 	 */
-	private List<HeuristicPheromone> auxInitHeuristicPheromone(Integer alphIdx) {
-		List<HeuristicPheromone> result = new ArrayList<>();
-		for (int i = 0; i < this.problem.getAlphabetLength(); i++) {
-			// Initialise Heuristic Information
-			Long count = 0l;
-			for (String str : this.problem.getStrings()) {
-				if (this.problem.getAlphabet().get(i).equals(str.charAt(alphIdx))) {
-					count++;
-				}
+	private void auxInitHeuristicPheromone(int from, int to) {
+		byte[] columns = this.problem.getColumnSymbols();
+		double[] heuristic = this.heuristicPheromone.getHeuristicInformationValues();
+		int numStr = this.problem.getNumStr();
+		for (int j = from; j < to; j++) {
+			int offset = this.heuristicPheromone.offset(j);
+			for (int s = j * numStr; s < (j + 1) * numStr; s++) {
+				heuristic[offset + (columns[s] & 0xFF)]++;
 			}
-			result.add(new HeuristicPheromone(count, 1.0 / this.problem.getAlphabetLength()));
 		}
-		return result;
 	}
 
 	/**
@@ -87,54 +258,392 @@ public abstract class CSPSolver implements Solver {
 	 * heuristic information
 	 */
 	private void initProbability() {
-		this.probability = new ArrayList<>();
-		for (int i = 0; i < this.problem.getStrLength(); i++) {
-			this.probability.add(auxInitProbability());
+		this.probability = new DoubleMatrix(this.problem.getStrLength(), this.problem.getAlphabetLength(),
+				1.0 / this.problem.getAlphabetLength());
+		int candidates = (Integer) this.cfg.getOrDefault("candidates", 0);
+		if (candidates > 0) {
+			this.sampler = new CandidateListSampler(this.problem.getStrLength(), this.problem.getAlphabetLength(),
+					candidates);
+		} else {
+			this.sampler = new AliasSampler(this.problem.getStrLength(), this.problem.getAlphabetLength());
 		}
+		this.sampler.update(this.probability);
+		// The uniform start does not derive from the trails
+		this.sampler.reset();
 
 //		this.updateProbability();
 	}
 
-	private List<Double> auxInitProbability() {
-		List<Double> result = new ArrayList<>();
-		for (int i = 0; i < this.problem.getAlphabetLength(); i++) {
-			result.add(1.0 / this.problem.getAlphabetLength());
+	@Override
+	public void solve() {
+		this.termination.start();
+		if (this.metricsExporter != null) {
+			this.metricsExporter.start();
+		}
+		if (this.checkpointWriter != null) {
+			this.checkpointWriter.start();
+		}
+		try {
+			while (!this.terminate()) {
+				if (this.metrics != null) {
+					this.metrics.begin();
+				}
+				if (this.positions != null && this.unfreezeInterval > 0 && this.currentIter > 0
+						&& this.currentIter % this.unfreezeInterval == 0) {
+					// Positions still converged freeze again at the end of the
+					// iteration
+					this.unfreezePositions();
+					this.updateSampler();
+				}
+				this.solveColony();
+				this.currentIter++;
+				if (this.iterationListener != null) {
+					this.iterationListener.iterationCompleted(this);
+				}
+				if (this.checkpointWriter != null && this.currentIter % this.checkpointInterval == 0) {
+					this.checkpointWriter.submit(this.checkpoint());
+				}
+				if (this.metrics != null) {
+					this.metrics.record(this.currentIter, this.getCurrentScore(), this.getCurrentMinHammingDistance(),
+							this.getCurrentMaxHammingDistance(), this.pheromoneEntropy());
+				}
+				if (this.logIterations && LOGGER.isInfoEnabled()) {
+					LOGGER.info("Iteration: " + this.currentIter + " Score: " + this.getCurrentScore() + " Min: "
+							+ this.getCurrentMinHammingDistance() + " Max: " + this.getCurrentMaxHammingDistance()
+							+ " Gap: " + this.getOptimalityGap());
+				}
+			}
+			if (this.checkpointWriter != null) {
+				// Last state, so that a finished run can be extended. Not taken
+				// when failing, as the state may be halfway through an iteration
+				this.checkpointWriter.submit(this.checkpoint());
+			}
+			if (this.getOptimalityGap() <= 0) {
+				LOGGER.info("Optimal solution found, its maximum Hamming distance matches the lower bound "
+						+ this.lowerBound);
+			}
+		} finally {
+			if (this.pool != null) {
+				this.pool.shutdown();
+			}
+			if (this.metricsExporter != null) {
+				this.metricsExporter.close();
+			}
+			if (this.checkpointWriter != null) {
+				this.checkpointWriter.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Lets every ant of the colony build and evaluate a solution. When more than
+	 * one thread is configured the ants are processed in the solver's pool.
+	 * Each ant samples from its own random stream, so the solutions obtained
+	 * do not depend on how the ants are scheduled over the threads.
+	 */
+	protected void constructSolutions() {
+		if (this.metrics != null) {
+			// Split in two passes so that each phase can be timed
+			this.forEachAnt(this.findSolution);
+			this.mark(IterationMetrics.CONSTRUCTION);
+			this.forEachAnt(this.evaluateSolution);
+			this.mark(IterationMetrics.EVALUATION);
+		} else {
+			this.forEachAnt(this.constructSolution);
 		}
-		return result;
 	}
 
-	// private void initProbability() {
-	// this.probability = new ArrayList<>();
-	// for (int j = 0; j < this.problem.getStrLength(); j++) {
-	// List<Double> probList = new ArrayList<>();
-	// for (int i = 0; i < this.problem.getStrLength(); i++) {
-	// LOGGER.info(j);
-	// probList.add(0.0);
-	// }
-	// this.probability.add(probList);
-	// }
-	// this.updateProbability();
-	//
-	// }
+	private void forEachAnt(Consumer<Ant> action) {
+		if (this.pool == null) {
+			for (int a = 0; a < this.ants.size(); a++) {
+				action.accept(this.ants.get(a));
+			}
+		} else {
+			this.pool.submit(() -> this.ants.parallelStream().forEach(action)).join();
+		}
+	}
 
-	@Override
-	public void solve() {
-		while (!this.terminate()) {
-			this.solveColony();
-			this.currentIter++;
-			LOGGER.info("Iteration: " + this.currentIter + " Score: " + this.getCurrentScore() + " Min: "
-					+ this.getCurrentMinHammingDistance() + " Max: " + this.getCurrentMaxHammingDistance());
+	/**
+	 * Ends the given phase of the iteration in progress, when measuring
+	 * 
+	 * @param phase
+	 *            one of the phases of {@link IterationMetrics}
+	 */
+	protected void mark(int phase) {
+		if (this.metrics != null) {
+			this.metrics.mark(phase);
 		}
+	}
+
+	/**
+	 * Average over all positions of the Shannon entropy, in bits, of the
+	 * pheromone values normalised per position. Starts at log2(k) and tends to
+	 * zero as the colony converges.
+	 * 
+	 * @return
+	 */
+	protected double pheromoneEntropy() {
+		double[] pheromone = this.heuristicPheromone.getPheromoneValues();
+		int alphabetLength = this.problem.getAlphabetLength();
+		double total = 0.0;
+		for (int j = 0; j < this.problem.getStrLength(); j++) {
+			int offset = this.heuristicPheromone.offset(j);
+			double sum = 0.0;
+			for (int i = offset; i < offset + alphabetLength; i++) {
+				sum += pheromone[i];
+			}
+			double entropy = 0.0;
+			for (int i = offset; i < offset + alphabetLength; i++) {
+				if (pheromone[i] > 0.0) {
+					double p = pheromone[i] / sum;
+					entropy -= p * Math.log(p);
+				}
+			}
+			total += entropy;
+		}
+		return total / this.problem.getStrLength() / Math.log(2.0);
+	}
+
+	/**
+	 * Improves the solution of the given ant with the local search, when
+	 * enabled
+	 * 
+	 * @param ant
+	 */
+	protected void applyLocalSearch(Ant ant) {
+		if (this.localSearch == null) {
+			return;
+		}
+		ant.evaluateSolution(this.evaluator);
+		if (this.localSearch.improve(this.evaluator) > 0) {
+			ant.update(this.evaluator);
+		}
+	}
 
+	private void findSolution(Ant ant) {
+		if (this.positions == null) {
+			ant.findSolution(this.sampler, this.problem.getAlphabet());
+		} else {
+			ant.findSolution(this.sampler, this.problem.getAlphabet(), this.positions);
+		}
+	}
+
+	private void constructSolution(Ant ant) {
+		this.findSolution(ant);
+		ant.evaluateSolution(this.problem.getPackedStrings());
+	}
+
+	/**
+	 * Makes every position active again, e.g. once the trails of frozen
+	 * positions changed. The sampling tables have to be updated afterwards.
+	 */
+	protected void unfreezePositions() {
+		if (this.positions != null) {
+			this.positions.unfreezeAll();
+			this.sampler.reset();
+		}
 	}
 
+	/**
+	 * Number of positions to be processed by the pheromone and probability
+	 * updates, which take them from {@link #activePosition(int)}
+	 * 
+	 * @return
+	 */
+	protected int numActivePositions() {
+		return this.positions == null ? this.problem.getStrLength() : this.positions.getNumActive();
+	}
+
+	/**
+	 * The a-th position to be processed by the pheromone and probability
+	 * updates
+	 * 
+	 * @param a
+	 * @return
+	 */
+	protected int activePosition(int a) {
+		return this.positions == null ? a : this.positions.getActive()[a];
+	}
+
+	/**
+	 * Difference between the maximum Hamming distance of the best solution and
+	 * the lower bound of the instance. The best solution is optimal when it is
+	 * zero.
+	 * 
+	 * @return
+	 */
+	public long getOptimalityGap() {
+		return this.getCurrentMaxHammingDistance() - this.lowerBound;
+	}
+
+	public long getLowerBound() {
+		return lowerBound;
+	}
+
+	public int getCurrentIter() {
+		return currentIter;
+	}
+
+	/**
+	 * Best solution found so far, as a string
+	 * 
+	 * @return
+	 */
+	public String getBestSolution() {
+		int[] path = this.getCurrentBestPath();
+		StringBuilder sb = new StringBuilder(path.length);
+		for (int symbol : path) {
+			sb.append(this.problem.getAlphabet().get(symbol));
+		}
+		return sb.toString();
+	}
+
+	public void setIterationListener(IterationListener iterationListener) {
+		this.iterationListener = iterationListener;
+	}
+
+	/**
+	 * Adds a criterion to the ones built from the configuration, stopping when
+	 * any of them is met
+	 * 
+	 * @param criterion
+	 */
+	public void addTermination(TerminationCriterion criterion) {
+		List<TerminationCriterion> criteria = new ArrayList<>();
+		criteria.add(this.termination);
+		criteria.add(criterion);
+		this.termination = CompositeCriterion.anyOf(criteria);
+	}
+
+	/**
+	 * Evaluates a solution found elsewhere, e.g. by another colony, in an ant
+	 * of its own which is not part of the colony
+	 * 
+	 * @param path
+	 * @return
+	 */
+	protected Ant evaluatePath(int[] path) {
+		// It never samples, so it can share the solver's stream
+		Ant ant = new Ant(this.randUtils);
+		ant.setSolution(path, this.problem.getAlphabet());
+		ant.evaluateSolution(this.problem.getPackedStrings());
+		return ant;
+	}
+
+	/**
+	 * Moves the trails towards the given ones, taking
+	 * <code>(1 - weight) * own + weight * other</code> on every entry, and
+	 * refreshes the probabilities accordingly
+	 * 
+	 * @param other
+	 * @param weight
+	 */
+	public void blendPheromone(double[] other, double weight) {
+		this.heuristicPheromone.normalizePheromone();
+		double[] pheromone = this.heuristicPheromone.getPheromoneValues();
+		for (int i = 0; i < pheromone.length; i++) {
+			pheromone[i] = (1.0 - weight) * pheromone[i] + weight * other[i];
+		}
+		// Every trail moved, not only those of a reinforced path
+		this.sampler.reset();
+		this.unfreezePositions();
+		this.updateProbability();
+		this.updateSampler();
+	}
+
+	/**
+	 * Takes the given solution as the best one found so far. Only called with
+	 * solutions better than the current best.
+	 * 
+	 * @param path
+	 */
+	protected abstract void acceptSolution(int[] path);
+
+	/**
+	 * Takes a snapshot of the state of the solver, to be written while it keeps
+	 * iterating. Only meant to be called between iterations.
+	 * 
+	 * @return
+	 */
+	public Checkpoint checkpoint() {
+		long[] antStates = new long[2 * this.ants.size()];
+		for (int a = 0; a < this.ants.size(); a++) {
+			RandomUtils antRandUtils = this.ants.get(a).getRandUtils();
+			antStates[2 * a] = antRandUtils.getSeed();
+			antStates[2 * a + 1] = antRandUtils.getGamma();
+		}
+		return new Checkpoint((Algorithm) this.cfg.get("algorithm"), this.problem.getAlphabetLength(),
+				this.problem.getNumStr(), this.problem.getStrLength(), this.currentIter,
+				new long[] { this.randUtils.getSeed(), this.randUtils.getGamma() }, antStates,
+				this.getAlgorithmState(), this.getCurrentBestPath().clone(),
+				this.heuristicPheromone.getPheromoneValues().clone(), this.heuristicPheromone.getPheromoneScale(),
+				this.probability.getData().clone());
+	}
+
+	/**
+	 * Puts the solver back in the state of the given checkpoint, so that the
+	 * run goes on exactly as it would have from there. The configuration must
+	 * match the one of the checkpointed run.
+	 * 
+	 * @param checkpoint
+	 */
+	public void restore(Checkpoint checkpoint) {
+		if (checkpoint.algorithm != this.cfg.get("algorithm") || checkpoint.numStr != this.problem.getNumStr()
+				|| checkpoint.strLength != this.problem.getStrLength()
+				|| checkpoint.alphabetLength != this.problem.getAlphabetLength()
+				|| checkpoint.getNumAnts() != this.ants.size()) {
+			throw new IllegalArgumentException("The checkpoint was taken from a " + checkpoint.algorithm
+					+ " run with " + checkpoint.getNumAnts() + " ants on a different instance or configuration");
+		}
+		this.currentIter = checkpoint.iteration;
+		this.randUtils.setState(checkpoint.randState[0], checkpoint.randState[1]);
+		for (int a = 0; a < this.ants.size(); a++) {
+			this.ants.get(a).getRandUtils().setState(checkpoint.antStates[2 * a], checkpoint.antStates[2 * a + 1]);
+		}
+		System.arraycopy(checkpoint.pheromone, 0, this.heuristicPheromone.getPheromoneValues(), 0,
+				checkpoint.pheromone.length);
+		this.heuristicPheromone.setPheromoneScale(checkpoint.pheromoneScale);
+		System.arraycopy(checkpoint.probability, 0, this.probability.getData(), 0, checkpoint.probability.length);
+		if (this.positions != null) {
+			// Every position converged at the end of an iteration is frozen
+			this.positions.unfreezeAll();
+			for (int j = 0; j < this.problem.getStrLength(); j++) {
+				this.freezeIfConverged(j);
+			}
+			this.positions.compact();
+		}
+		this.updateSampler();
+		this.acceptSolution(checkpoint.bestPath);
+		this.restoreAlgorithmState(checkpoint.algorithmState);
+		LOGGER.info("Resuming from iteration " + this.currentIter + " Max: " + this.getCurrentMaxHammingDistance());
+	}
+
+	/**
+	 * Values, other than the best solution, that the algorithm needs to resume
+	 * a run
+	 * 
+	 * @return
+	 */
+	protected abstract long[] getAlgorithmState();
+
+	/**
+	 * Restores the values given by {@link #getAlgorithmState()}, once the best
+	 * solution has been restored
+	 * 
+	 * @param state
+	 */
+	protected abstract void restoreAlgorithmState(long[] state);
+
 	protected abstract void solveColony();
 
-	protected abstract Long getCurrentScore();
+	protected abstract long getCurrentScore();
+
+	protected abstract long getCurrentMinHammingDistance();
 
-	protected abstract Long getCurrentMinHammingDistance();
+	protected abstract long getCurrentMaxHammingDistance();
 
-	protected abstract Long getCurrentMaxHammingDistance();
+	protected abstract int[] getCurrentBestPath();
 
 	protected abstract void loadAdditionalParameters();
 
@@ -143,21 +652,95 @@ public abstract class CSPSolver implements Solver {
 	 */
 	@Override
 	public Boolean terminate() {
-		return this.maxIter < this.currentIter;
+		return this.termination.terminate(this);
 	}
 
-	protected void normalizeProbability() {
-		// Make all negative values equals to zero
-		this.probability = this.probability.stream()
-				.map(p -> p.stream().map(v -> v.compareTo(0.0) < 0 ? 0.0 : v)
-						.collect(Collectors.toCollection(ArrayList::new)))
-				.collect(Collectors.toCollection(ArrayList::new));
+	/**
+	 * Updates the probability list using the values for pheromone and heuristic
+	 * information, weighting every symbol by tau^alpha * eta^beta. The heuristic
+	 * powers come from a cache and tau^alpha is only computed when alpha is not
+	 * 1.0, so the common case is a plain multiply-add. Normalisation is fused in
+	 * the same sweep: every row is filled with its non-negative weights while
+	 * they are summed, and then scaled in place while it is still in cache, so
+	 * the rows always sum 1.0 without any intermediate structure.
+	 * 
+	 * Only the active positions are updated. Those whose most likely symbol
+	 * reaches the freeze threshold are frozen to it.
+	 */
+	@Override
+	public void updateProbability() {
+		double[] pheromone = this.heuristicPheromone.getPheromoneValues();
+		double[] heuristic = this.heuristicPheromone.getHeuristicPowerValues(this.beta);
+		double[] probability = this.probability.getData();
+		int alphabetLength = this.problem.getAlphabetLength();
+		boolean unitAlpha = this.alpha == 1.0;
+		int numActive = this.numActivePositions();
+		for (int a = 0; a < numActive; a++) {
+			int j = this.activePosition(a);
+			int offset = this.heuristicPheromone.offset(j);
+			double denominator = 0.0;
+			if (unitAlpha) {
+				for (int i = offset; i < offset + alphabetLength; i++) {
+					double value = Math.max(0.0, pheromone[i] * heuristic[i]);
+					probability[i] = value;
+					denominator += value;
+				}
+			} else {
+				for (int i = offset; i < offset + alphabetLength; i++) {
+					double value = Math.max(0.0, Math.pow(pheromone[i], this.alpha) * heuristic[i]);
+					probability[i] = value;
+					denominator += value;
+				}
+			}
+			if (denominator > 0.0) {
+				double scale = 1.0 / denominator;
+				for (int i = offset; i < offset + alphabetLength; i++) {
+					probability[i] *= scale;
+				}
+			} else {
+				for (int i = offset; i < offset + alphabetLength; i++) {
+					probability[i] = 1.0 / alphabetLength;
+				}
+			}
+			if (this.positions != null) {
+				this.freezeIfConverged(j);
+			}
+		}
+		if (this.positions != null) {
+			this.positions.compact();
+		}
+	}
+
+	/**
+	 * Freezes the given position when its most likely symbol reaches the
+	 * freeze threshold
+	 * 
+	 * @param position
+	 */
+	private void freezeIfConverged(int position) {
+		double[] probability = this.probability.getData();
+		int offset = this.probability.offset(position);
+		int best = 0;
+		for (int i = 1; i < this.problem.getAlphabetLength(); i++) {
+			if (probability[offset + i] > probability[offset + best]) {
+				best = i;
+			}
+		}
+		if (probability[offset + best] >= this.freezeThreshold) {
+			this.positions.freeze(position, best);
+		}
+	}
 
-		// Make all values in probability arrays sum exactly 1.0
-		this.probability = this.probability.stream().map(p -> {
-			Double sum = p.stream().mapToDouble(a -> a).sum();
-			return p.stream().map(v -> v / sum).collect(Collectors.toCollection(ArrayList::new));
-		}).collect(Collectors.toCollection(ArrayList::new));
+	/**
+	 * Rebuilds the sampling tables used by the ants. To be called once the
+	 * probabilities of the iteration are final.
+	 */
+	protected void updateSampler() {
+		if (this.positions == null) {
+			this.sampler.update(this.probability);
+		} else {
+			this.sampler.update(this.probability, this.positions.getActive(), this.positions.getNumActive());
+		}
 	}
 
 }
@@ -0,0 +1,212 @@
+package be.vub.swarmintelligence;
+
+/**
+ * {@link Sampler} keeping, for every position, the few symbols holding the
+ * highest probabilities, sorted from the most to the least likely. A draw
+ * scans those candidates and only falls back to the remaining symbols, in
+ * proportion to their probabilities, when the random number lands beyond
+ * them. The distribution sampled is therefore exactly the one given, but once
+ * the trails converge nearly every draw ends within the first candidates.
+ * 
+ * The candidates are kept up to date incrementally. Evaporation scales every
+ * trail of a position by the same factor, which leaves the ranking of its
+ * symbols untouched, so after a pheromone update only the symbols of the
+ * reinforced path can move up. When the path reinforced since the last
+ * update is known, through {@link #reinforced(int[])}, every position costs
+ * O(candidates) instead of a full O(alphabet) rebuild. Updates without a
+ * reinforced path, or following a {@link #reset()}, rebuild the lists from
+ * scratch.
+ * 
+ * Symbols with equal probabilities are ranked by their index when the lists
+ * are built from scratch, but keep their order in incremental updates, so a
+ * run resumed from a checkpoint may draw differently from the uninterrupted
+ * one.
+ *
+ */
+public class CandidateListSampler implements Sampler {
+
+	private final int strLength;
+	private final int alphabetLength;
+	private final int size;
+	// Candidates of every position, most likely first
+	private final int[] candidates;
+	// Cumulative probabilities of the candidates
+	private final double[] cumulative;
+	// Whether each symbol of each position is a candidate
+	private final boolean[] member;
+	// Path reinforced since the last update, valid when pending
+	private final int[] path;
+	private boolean pending;
+	// Whether the lists must be rebuilt from scratch
+	private boolean stale = true;
+	private double[] values;
+
+	public CandidateListSampler(int strLength, int alphabetLength, int size) {
+		this.strLength = strLength;
+		this.alphabetLength = alphabetLength;
+		this.size = Math.max(1, Math.min(size, alphabetLength));
+		this.candidates = new int[strLength * this.size];
+		this.cumulative = new double[strLength * this.size];
+		this.member = new boolean[strLength * alphabetLength];
+		this.path = new int[strLength];
+	}
+
+	@Override
+	public void reinforced(int[] path) {
+		System.arraycopy(path, 0, this.path, 0, this.strLength);
+		this.pending = true;
+	}
+
+	@Override
+	public void reset() {
+		this.stale = true;
+	}
+
+	@Override
+	public void update(DoubleMatrix probability) {
+		this.values = probability.getData();
+		for (int j = 0; j < this.strLength; j++) {
+			this.updatePosition(j);
+		}
+		this.pending = false;
+		this.stale = false;
+	}
+
+	@Override
+	public void update(DoubleMatrix probability, int[] positions, int count) {
+		this.values = probability.getData();
+		for (int a = 0; a < count; a++) {
+			this.updatePosition(positions[a]);
+		}
+		this.pending = false;
+		this.stale = false;
+	}
+
+	private void updatePosition(int position) {
+		if (this.pending && !this.stale) {
+			this.promote(position, this.path[position]);
+		} else {
+			this.rebuild(position);
+		}
+		int from = position * this.size;
+		int offset = position * this.alphabetLength;
+		double sum = 0.0;
+		for (int r = from; r < from + this.size; r++) {
+			sum += this.values[offset + this.candidates[r]];
+			this.cumulative[r] = sum;
+		}
+	}
+
+	/**
+	 * Whether symbol a ranks before symbol b at the given position
+	 */
+	private boolean ranksBefore(int offset, int a, int b) {
+		double va = this.values[offset + a];
+		double vb = this.values[offset + b];
+		return va > vb || (va == vb && a < b);
+	}
+
+	/**
+	 * Selects the candidates of a position from scratch
+	 * 
+	 * @param position
+	 */
+	private void rebuild(int position) {
+		int from = position * this.size;
+		int offset = position * this.alphabetLength;
+		int count = 0;
+		for (int i = 0; i < this.alphabetLength; i++) {
+			this.member[offset + i] = false;
+			if (count == this.size && !this.ranksBefore(offset, i, this.candidates[from + count - 1])) {
+				continue;
+			}
+			int r = count < this.size ? count++ : count - 1;
+			while (r > 0 && this.ranksBefore(offset, i, this.candidates[from + r - 1])) {
+				this.candidates[from + r] = this.candidates[from + r - 1];
+				r--;
+			}
+			this.candidates[from + r] = i;
+		}
+		for (int r = from; r < from + this.size; r++) {
+			this.member[offset + this.candidates[r]] = true;
+		}
+	}
+
+	/**
+	 * Moves the reinforced symbol of a position up its list, bringing it in
+	 * when it now ranks before the last candidate
+	 * 
+	 * @param position
+	 * @param symbol
+	 */
+	private void promote(int position, int symbol) {
+		int from = position * this.size;
+		int offset = position * this.alphabetLength;
+		int r;
+		if (this.member[offset + symbol]) {
+			r = from;
+			while (this.candidates[r] != symbol) {
+				r++;
+			}
+			r -= from;
+		} else {
+			int last = this.candidates[from + this.size - 1];
+			if (!this.ranksBefore(offset, symbol, last)) {
+				return;
+			}
+			this.member[offset + last] = false;
+			this.member[offset + symbol] = true;
+			r = this.size - 1;
+		}
+		while (r > 0 && this.ranksBefore(offset, symbol, this.candidates[from + r - 1])) {
+			this.candidates[from + r] = this.candidates[from + r - 1];
+			r--;
+		}
+		this.candidates[from + r] = symbol;
+	}
+
+	@Override
+	public int sample(int position, RandomUtils randUtils) {
+		double u = randUtils.nextDouble();
+		int from = position * this.size;
+		for (int r = from; r < from + this.size; r++) {
+			if (u < this.cumulative[r]) {
+				return this.candidates[r];
+			}
+		}
+		// Fall back to the symbols outside the list
+		u -= this.cumulative[from + this.size - 1];
+		int offset = position * this.alphabetLength;
+		int last = -1;
+		for (int i = 0; i < this.alphabetLength; i++) {
+			if (this.member[offset + i] || !(this.values[offset + i] > 0.0)) {
+				continue;
+			}
+			u -= this.values[offset + i];
+			if (u < 0.0) {
+				return i;
+			}
+			last = i;
+		}
+		// The probabilities summed just below 1.0 due to rounding
+		return last >= 0 ? last : this.candidates[from + this.size - 1];
+	}
+
+	/**
+	 * Symbol holding the given rank in the candidates of a position, 0 being
+	 * the most likely
+	 * 
+	 * @param position
+	 * @param rank
+	 * @return
+	 */
+	int getCandidate(int position, int rank) {
+		return this.candidates[position * this.size + rank];
+	}
+
+	@Override
+	public int getStrLength() {
+		return strLength;
+	}
+
+}
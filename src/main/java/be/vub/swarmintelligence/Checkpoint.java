@@ -0,0 +1,245 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Snapshot of the state of a solver between two iterations, enough to resume
+ * the run exactly where it was taken. Every array is a copy owned by the
+ * snapshot, so it can be written while the solver keeps iterating.
+ *
+ * It is stored in a binary file, all values little endian:
+ * 
+ * <pre>
+ * int    magic ("CSPK")
+ * int    version
+ * int    algorithm, ordinal of {@link Algorithm}
+ * int    alphabet length (k)
+ * int    number of strings (n)
+ * int    string length (L)
+ * int    number of ants
+ * int    iteration
+ * double scale of the stored pheromone values
+ * long[2] state of the solver's random stream, seed and gamma
+ * long[2 * ants] state of every ant's random stream
+ * int    length of the algorithm state
+ * long[] algorithm state
+ * byte[L] best path
+ * ...    padding up to a multiple of 8 bytes
+ * double[L*k] pheromone, relative to the scale
+ * double[L*k] probability
+ * </pre>
+ *
+ */
+public class Checkpoint {
+
+	public static final int MAGIC = 0x4B505343;
+	public static final int VERSION = 2;
+	public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	final Algorithm algorithm;
+	final int alphabetLength;
+	final int numStr;
+	final int strLength;
+	final int iteration;
+	final long[] randState;
+	// Seed and gamma of every ant, interleaved
+	final long[] antStates;
+	final long[] algorithmState;
+	final int[] bestPath;
+	final double[] pheromone;
+	final double pheromoneScale;
+	final double[] probability;
+
+	Checkpoint(Algorithm algorithm, int alphabetLength, int numStr, int strLength, int iteration,
+			long[] randState, long[] antStates, long[] algorithmState, int[] bestPath, double[] pheromone,
+			double pheromoneScale, double[] probability) {
+		this.algorithm = algorithm;
+		this.alphabetLength = alphabetLength;
+		this.numStr = numStr;
+		this.strLength = strLength;
+		this.iteration = iteration;
+		this.randState = randState;
+		this.antStates = antStates;
+		this.algorithmState = algorithmState;
+		this.bestPath = bestPath;
+		this.pheromone = pheromone;
+		this.pheromoneScale = pheromoneScale;
+		this.probability = probability;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	public int getNumAnts() {
+		return this.antStates.length / 2;
+	}
+
+	private int unpaddedHeaderSize() {
+		return 8 * Integer.BYTES + Double.BYTES + (this.randState.length + this.antStates.length) * Long.BYTES + Integer.BYTES
+				+ this.algorithmState.length * Long.BYTES + this.strLength;
+	}
+
+	/**
+	 * Size of the header, best path included and padded to a multiple of 8
+	 * 
+	 * @return
+	 */
+	private int headerSize() {
+		return (this.unpaddedHeaderSize() + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+	}
+
+	/**
+	 * Writes the checkpoint through a fixed size buffer, whatever the size of
+	 * the matrices
+	 * 
+	 * @param location
+	 * @throws IOException
+	 */
+	public void write(Path location) throws IOException {
+		try (FileChannel fc = FileChannel.open(location, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ORDER);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(this.algorithm.ordinal());
+			buffer.putInt(this.alphabetLength);
+			buffer.putInt(this.numStr);
+			buffer.putInt(this.strLength);
+			buffer.putInt(this.getNumAnts());
+			buffer.putInt(this.iteration);
+			buffer.putDouble(this.pheromoneScale);
+			for (long value : this.randState) {
+				buffer = ensure(fc, buffer, Long.BYTES).putLong(value);
+			}
+			for (long value : this.antStates) {
+				buffer = ensure(fc, buffer, Long.BYTES).putLong(value);
+			}
+			buffer = ensure(fc, buffer, Integer.BYTES).putInt(this.algorithmState.length);
+			for (long value : this.algorithmState) {
+				buffer = ensure(fc, buffer, Long.BYTES).putLong(value);
+			}
+			for (int symbol : this.bestPath) {
+				buffer = ensure(fc, buffer, 1).put((byte) symbol);
+			}
+			for (int i = this.unpaddedHeaderSize(); i < this.headerSize(); i++) {
+				buffer = ensure(fc, buffer, 1).put((byte) 0);
+			}
+			for (double value : this.pheromone) {
+				buffer = ensure(fc, buffer, Double.BYTES).putDouble(value);
+			}
+			for (double value : this.probability) {
+				buffer = ensure(fc, buffer, Double.BYTES).putDouble(value);
+			}
+			flush(fc, buffer);
+			fc.force(false);
+		}
+	}
+
+	private static ByteBuffer ensure(FileChannel fc, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(fc, buffer);
+		}
+		return buffer;
+	}
+
+	private static void flush(FileChannel fc, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			fc.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Reads a checkpoint written by {@link #write(Path)}
+	 * 
+	 * @param location
+	 * @return
+	 * @throws IOException
+	 */
+	public static Checkpoint read(Path location) throws IOException {
+		try (FileChannel fc = FileChannel.open(location, StandardOpenOption.READ)) {
+			if (fc.size() > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Checkpoint too large to be mapped");
+			}
+			MappedByteBuffer buffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+			buffer.order(ORDER);
+			// Fixed part of the header, up to the random stream states
+			long size = 8 * Integer.BYTES + Double.BYTES;
+			if (fc.size() < size || buffer.getInt() != MAGIC) {
+				throw notCheckpoint(location, "wrong magic number");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IllegalStateException("Unsupported checkpoint version " + version);
+			}
+			int ordinal = buffer.getInt();
+			int alphabetLength = buffer.getInt();
+			int numStr = buffer.getInt();
+			int strLength = buffer.getInt();
+			int numAnts = buffer.getInt();
+			int iteration = buffer.getInt();
+			double pheromoneScale = buffer.getDouble();
+			// Every value sizing an array is checked against the size of the
+			// file before the array is allocated
+			if (ordinal < 0 || ordinal >= Algorithm.values().length) {
+				throw notCheckpoint(location, "unknown algorithm " + ordinal);
+			}
+			if (alphabetLength < 1 || alphabetLength > 256 || numStr < 1 || strLength < 1 || numAnts < 1
+					|| iteration < 0) {
+				throw notCheckpoint(location, "invalid header");
+			}
+			size += 2l * (1l + numAnts) * Long.BYTES + Integer.BYTES;
+			if (fc.size() < size) {
+				throw notCheckpoint(location, "truncated header");
+			}
+			Algorithm algorithm = Algorithm.values()[ordinal];
+			long[] randState = new long[2];
+			buffer.asLongBuffer().get(randState);
+			buffer.position(buffer.position() + randState.length * Long.BYTES);
+			long[] antStates = new long[2 * numAnts];
+			buffer.asLongBuffer().get(antStates);
+			buffer.position(buffer.position() + antStates.length * Long.BYTES);
+			int algorithmStateLength = buffer.getInt();
+			if (algorithmStateLength < 0) {
+				throw notCheckpoint(location, "invalid algorithm state length " + algorithmStateLength);
+			}
+			size += (long) algorithmStateLength * Long.BYTES + strLength;
+			size = (size + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+			size += 2l * strLength * alphabetLength * Double.BYTES;
+			if (fc.size() != size) {
+				throw new IllegalStateException("Checkpoint should have " + size + " bytes but has " + fc.size());
+			}
+			long[] algorithmState = new long[algorithmStateLength];
+			buffer.asLongBuffer().get(algorithmState);
+			buffer.position(buffer.position() + algorithmState.length * Long.BYTES);
+			int[] bestPath = new int[strLength];
+			for (int j = 0; j < strLength; j++) {
+				bestPath[j] = buffer.get() & 0xFF;
+			}
+			double[] pheromone = new double[strLength * alphabetLength];
+			double[] probability = new double[strLength * alphabetLength];
+			Checkpoint checkpoint = new Checkpoint(algorithm, alphabetLength, numStr, strLength, iteration, randState,
+					antStates, algorithmState, bestPath, pheromone, pheromoneScale, probability);
+			buffer.position(checkpoint.headerSize());
+			buffer.asDoubleBuffer().get(pheromone);
+			buffer.position(buffer.position() + pheromone.length * Double.BYTES);
+			buffer.asDoubleBuffer().get(probability);
+			return checkpoint;
+		}
+	}
+
+	private static IllegalStateException notCheckpoint(Path location, String reason) {
+		return new IllegalStateException(location + " is not a checkpoint: " + reason);
+	}
+
+}
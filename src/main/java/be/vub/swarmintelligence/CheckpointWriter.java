@@ -0,0 +1,93 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Background thread writing the checkpoints handed over by a solver, so that
+ * the solver never waits on I/O. Only the latest checkpoint matters: one
+ * submitted while the previous is still pending replaces it.
+ *
+ * Every checkpoint is written to a temporary file which then replaces the
+ * previous one, so a process killed while writing leaves the last complete
+ * checkpoint in place.
+ *
+ */
+public class CheckpointWriter implements Runnable {
+	private final static Logger LOGGER = Logger.getLogger(CheckpointWriter.class);
+
+	private final Path location;
+	private final Path temporary;
+	private final AtomicReference<Checkpoint> pending = new AtomicReference<>();
+	private final Thread thread;
+	private volatile boolean running;
+
+	public CheckpointWriter(String fileLocation) {
+		this.location = Paths.get(fileLocation).toAbsolutePath();
+		this.temporary = this.location.resolveSibling(this.location.getFileName() + ".tmp");
+		this.thread = new Thread(this, "checkpoint-writer");
+		this.thread.setDaemon(true);
+	}
+
+	public void start() {
+		this.running = true;
+		this.thread.start();
+	}
+
+	/**
+	 * Hands a checkpoint over to be written
+	 * 
+	 * @param checkpoint
+	 */
+	public void submit(Checkpoint checkpoint) {
+		this.pending.set(checkpoint);
+		LockSupport.unpark(this.thread);
+	}
+
+	@Override
+	public void run() {
+		while (this.running) {
+			if (!this.writePending()) {
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	private boolean writePending() {
+		Checkpoint checkpoint = this.pending.getAndSet(null);
+		if (checkpoint == null) {
+			return false;
+		}
+		try {
+			checkpoint.write(this.temporary);
+			Files.move(this.temporary, this.location, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			LOGGER.debug("Checkpoint of iteration " + checkpoint.getIteration() + " written to " + this.location);
+		} catch (IOException e) {
+			LOGGER.error("Could not write checkpoint. Reason: " + e.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the writer, writing the pending checkpoint if any
+	 */
+	public void close() {
+		this.running = false;
+		LockSupport.unpark(this.thread);
+		try {
+			this.thread.join();
+			this.writePending();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+package be.vub.swarmintelligence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines several criteria, stopping as soon as any of them is met. Every
+ * criterion is checked on each iteration, without short-circuit, so stateful
+ * criteria such as {@link StagnationCriterion} see every iteration.
+ *
+ */
+public class CompositeCriterion implements TerminationCriterion {
+
+	private final List<TerminationCriterion> criteria;
+
+	private CompositeCriterion(List<TerminationCriterion> criteria) {
+		this.criteria = new ArrayList<>(criteria);
+	}
+
+	public static CompositeCriterion anyOf(List<TerminationCriterion> criteria) {
+		return new CompositeCriterion(criteria);
+	}
+
+	@Override
+	public void start() {
+		for (TerminationCriterion criterion : this.criteria) {
+			criterion.start();
+		}
+	}
+
+	@Override
+	public boolean terminate(CSPSolver solver) {
+		boolean any = false;
+		for (TerminationCriterion criterion : this.criteria) {
+			any |= criterion.terminate(solver);
+		}
+		return any;
+	}
+
+}
@@ -0,0 +1,11 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Enumeration for the solution reinforced by the pheromone update of the
+ * elitist solver. GLOBAL reinforces the best solution found so far, ITERATION
+ * the best solution built in the current iteration.
+ *
+ */
+public enum DepositStrategy {
+	GLOBAL, ITERATION;
+}
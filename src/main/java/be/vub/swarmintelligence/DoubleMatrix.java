@@ -0,0 +1,70 @@
+package be.vub.swarmintelligence;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix of primitive doubles backed by a single contiguous array. Rows
+ * correspond to string positions and columns to alphabet symbols
+ * (position-major, alphabet-minor), so every row is a contiguous slice of the
+ * underlying array that can be walked without any pointer chasing or boxing.
+ * 
+ * @author fabio
+ *
+ */
+public class DoubleMatrix {
+	private final int rows;
+	private final int columns;
+	private final double[] data;
+
+	public DoubleMatrix(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.data = new double[rows * columns];
+	}
+
+	public DoubleMatrix(int rows, int columns, double value) {
+		this(rows, columns);
+		this.fill(value);
+	}
+
+	public double get(int row, int column) {
+		return this.data[row * this.columns + column];
+	}
+
+	public void set(int row, int column, double value) {
+		this.data[row * this.columns + column] = value;
+	}
+
+	public void fill(double value) {
+		Arrays.fill(this.data, value);
+	}
+
+	/**
+	 * Index in the underlying array where the given row starts
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int offset(int row) {
+		return row * this.columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Direct access to the underlying array, intended for the hot loops of the
+	 * solvers.
+	 * 
+	 * @return
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+}
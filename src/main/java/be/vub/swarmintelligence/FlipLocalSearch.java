@@ -0,0 +1,90 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Local search over the neighbourhood obtained by changing the symbol of a
+ * single position. A move improves the solution when it lowers the maximum
+ * Hamming distance, or keeps it and lowers the sum of distances, which lets
+ * the search walk the plateaus of the maximum.
+ * 
+ * Moves are scored through the incremental evaluator, so each one costs O(n).
+ * The search stops at a local optimum or once its budget of evaluated moves
+ * or time is spent, whichever comes first.
+ *
+ */
+public class FlipLocalSearch implements LocalSearch {
+
+	// Evaluated moves between two checks of the clock
+	private static final int TIME_CHECK_INTERVAL = 256;
+
+	private final LocalSearchMode mode;
+	private final long maxEvaluations;
+	private final long maxNanos;
+
+	/**
+	 * @param mode
+	 * @param maxEvaluations
+	 *            maximum number of moves evaluated per call, 0 for no limit
+	 * @param maxNanos
+	 *            maximum time spent per call, 0 for no limit
+	 */
+	public FlipLocalSearch(LocalSearchMode mode, long maxEvaluations, long maxNanos) {
+		this.mode = mode;
+		this.maxEvaluations = maxEvaluations > 0 ? maxEvaluations : Long.MAX_VALUE;
+		this.maxNanos = maxNanos;
+	}
+
+	@Override
+	public int improve(HammingEvaluator evaluator) {
+		long deadline = this.maxNanos > 0 ? System.nanoTime() + this.maxNanos : 0l;
+		int[] path = evaluator.getPath();
+		int alphabetLength = evaluator.getAlphabetLength();
+		long evaluations = 0l;
+		int moves = 0;
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int bestPosition = -1;
+			int bestSymbol = -1;
+			int bestMax = evaluator.getMax();
+			long bestSum = evaluator.getSum();
+			for (int j = 0; j < path.length; j++) {
+				for (int i = 0; i < alphabetLength; i++) {
+					if (i == path[j]) {
+						continue;
+					}
+					if (evaluations++ >= this.maxEvaluations || (deadline != 0l
+							&& evaluations % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0)) {
+						if (bestPosition >= 0) {
+							evaluator.set(bestPosition, bestSymbol);
+							moves++;
+						}
+						return moves;
+					}
+					int max = evaluator.evaluateMove(j, i);
+					long sum = evaluator.getCandidateSum();
+					if (max < bestMax || (max == bestMax && sum < bestSum)) {
+						if (this.mode == LocalSearchMode.FIRST) {
+							evaluator.set(j, i);
+							moves++;
+							improved = true;
+							bestMax = max;
+							bestSum = sum;
+						} else {
+							bestPosition = j;
+							bestSymbol = i;
+							bestMax = max;
+							bestSum = sum;
+						}
+					}
+				}
+			}
+			if (bestPosition >= 0) {
+				evaluator.set(bestPosition, bestSymbol);
+				moves++;
+				improved = true;
+			}
+		}
+		return moves;
+	}
+
+}
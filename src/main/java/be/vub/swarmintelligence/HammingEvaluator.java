@@ -0,0 +1,153 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Keeps the Hamming distance from one solution to every string of the problem,
+ * so that changing the symbol of a single position only costs one pass over
+ * the strings instead of a full evaluation. It can also score a change without
+ * applying it, which is what local search needs to compare moves.
+ * 
+ * An evaluator holds mutable state and must not be shared between threads.
+ *
+ */
+public class HammingEvaluator {
+
+	private final int numStr;
+	private final int strLength;
+	private final int alphabetLength;
+	// Symbols of the strings stored position after position
+	private final byte[] columns;
+	private final PackedStrings packedStrings;
+
+	private final int[] path;
+	private final long[] packedPath;
+	private final int[] distances;
+	private long sum;
+	private int max;
+	private int min;
+	// Sum of distances computed by the last call to evaluateMove
+	private long candidateSum;
+
+	public HammingEvaluator(CSPProblem problem) {
+		this.numStr = problem.getNumStr();
+		this.strLength = problem.getStrLength();
+		this.alphabetLength = problem.getAlphabetLength();
+		this.columns = problem.getColumnSymbols();
+		this.packedStrings = problem.getPackedStrings();
+		this.path = new int[this.strLength];
+		this.packedPath = this.packedStrings.newBuffer();
+		this.distances = new int[this.numStr];
+	}
+
+	/**
+	 * Loads a complete solution, computing its distances from scratch
+	 * 
+	 * @param solution
+	 */
+	public void load(int[] solution) {
+		System.arraycopy(solution, 0, this.path, 0, this.strLength);
+		this.packedStrings.pack(this.path, this.packedPath);
+		this.sum = 0l;
+		for (int s = 0; s < this.numStr; s++) {
+			this.distances[s] = this.packedStrings.distance(s, this.packedPath);
+			this.sum += this.distances[s];
+		}
+		this.updateExtremes();
+	}
+
+	/**
+	 * Changes the symbol of one position, updating the distances in O(n)
+	 * 
+	 * @param position
+	 * @param symbol
+	 */
+	public void set(int position, int symbol) {
+		int previous = this.path[position];
+		if (previous == symbol) {
+			return;
+		}
+		int offset = position * this.numStr;
+		for (int s = 0; s < this.numStr; s++) {
+			int current = this.columns[offset + s] & 0xFF;
+			// Distance goes down if the string matches the new symbol and up
+			// if it matched the old one
+			int delta = (current == previous ? 1 : 0) - (current == symbol ? 1 : 0);
+			this.distances[s] += delta;
+			this.sum += delta;
+		}
+		this.path[position] = symbol;
+		this.updateExtremes();
+	}
+
+	/**
+	 * Computes the maximum distance the solution would have if the given
+	 * position took the given symbol, without changing the solution. The sum
+	 * of distances of that move is left in {@link #getCandidateSum()}.
+	 * 
+	 * @param position
+	 * @param symbol
+	 * @return
+	 */
+	public int evaluateMove(int position, int symbol) {
+		int previous = this.path[position];
+		if (previous == symbol) {
+			this.candidateSum = this.sum;
+			return this.max;
+		}
+		int offset = position * this.numStr;
+		int candidateMax = Integer.MIN_VALUE;
+		long delta = 0l;
+		for (int s = 0; s < this.numStr; s++) {
+			int current = this.columns[offset + s] & 0xFF;
+			int d = (current == previous ? 1 : 0) - (current == symbol ? 1 : 0);
+			delta += d;
+			candidateMax = Math.max(candidateMax, this.distances[s] + d);
+		}
+		this.candidateSum = this.sum + delta;
+		return candidateMax;
+	}
+
+	private void updateExtremes() {
+		int mx = Integer.MIN_VALUE;
+		int mn = Integer.MAX_VALUE;
+		for (int s = 0; s < this.numStr; s++) {
+			mx = Math.max(mx, this.distances[s]);
+			mn = Math.min(mn, this.distances[s]);
+		}
+		this.max = mx;
+		this.min = mn;
+	}
+
+	public int getAlphabetLength() {
+		return alphabetLength;
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	/**
+	 * Current distance to every string. Read only.
+	 * 
+	 * @return
+	 */
+	public int[] getDistances() {
+		return distances;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	public int getMin() {
+		return min;
+	}
+
+	public long getCandidateSum() {
+		return candidateSum;
+	}
+
+}
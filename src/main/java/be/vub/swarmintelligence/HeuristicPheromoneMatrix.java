@@ -0,0 +1,183 @@
+package be.vub.swarmintelligence;
+
+import java.util.Arrays;
+
+/**
+ * Auxiliary structure holding both values for heuristic information and
+ * pheromone for every (position, symbol) pair. Values are stored in two
+ * contiguous primitive arrays laid out position-major, alphabet-minor, so the
+ * same index addresses the pheromone and heuristic value of a cell and both
+ * can be walked together in a single pass.
+ * 
+ * Pheromone values are stored relative to a global scale factor: the trail of
+ * a cell is its stored value times {@link #getPheromoneScale()}. Evaporating
+ * every trail then only shrinks the factor, and a deposit adds its amount
+ * divided by the factor to the cell, so an update costs as many operations as
+ * cells reinforced. The stored values are scaled back once the factor gets
+ * small enough to threaten their range.
+ * 
+ * @author fabio
+ *
+ */
+public class HeuristicPheromoneMatrix {
+	private final int strLength;
+	private final int alphabetLength;
+	private static final double MIN_PHEROMONE_SCALE = 1e-100;
+
+	private final double[] pheromone;
+	private double pheromoneScale = 1.0;
+	private final double[] heuristic;
+	// Heuristic values raised to heuristicExponent. They only depend on the
+	// instance and the exponent, so they are computed once and reused on
+	// every probability update
+	private final double[] heuristicPower;
+	private double heuristicExponent = Double.NaN;
+
+	public HeuristicPheromoneMatrix(int strLength, int alphabetLength) {
+		this.strLength = strLength;
+		this.alphabetLength = alphabetLength;
+		this.pheromone = new double[strLength * alphabetLength];
+		this.heuristic = new double[strLength * alphabetLength];
+		this.heuristicPower = new double[strLength * alphabetLength];
+	}
+
+	public double getPheromoneValue(int position, int symbol) {
+		return this.pheromone[position * this.alphabetLength + symbol] * this.pheromoneScale;
+	}
+
+	public void setPheromoneValue(int position, int symbol, double value) {
+		this.pheromone[position * this.alphabetLength + symbol] = value / this.pheromoneScale;
+	}
+
+	/**
+	 * Multiplies every trail by the given factor, in constant time
+	 * 
+	 * @param factor
+	 */
+	public void evaporate(double factor) {
+		this.pheromoneScale *= factor;
+		if (this.pheromoneScale < MIN_PHEROMONE_SCALE) {
+			this.normalizePheromone();
+		}
+	}
+
+	/**
+	 * Adds the given amount to the trail of a cell
+	 * 
+	 * @param position
+	 * @param symbol
+	 * @param amount
+	 */
+	public void depositPheromone(int position, int symbol, double amount) {
+		this.pheromone[position * this.alphabetLength + symbol] += amount / this.pheromoneScale;
+	}
+
+	/**
+	 * Folds the scale factor into the stored values, which then hold the
+	 * actual trails
+	 */
+	public void normalizePheromone() {
+		if (this.pheromoneScale != 1.0) {
+			for (int i = 0; i < this.pheromone.length; i++) {
+				this.pheromone[i] *= this.pheromoneScale;
+			}
+			this.pheromoneScale = 1.0;
+		}
+	}
+
+	/**
+	 * Copy of the actual trails
+	 * 
+	 * @return
+	 */
+	public double[] copyPheromoneValues() {
+		double[] values = this.pheromone.clone();
+		if (this.pheromoneScale != 1.0) {
+			for (int i = 0; i < values.length; i++) {
+				values[i] *= this.pheromoneScale;
+			}
+		}
+		return values;
+	}
+
+	public double getHeuristicInformationValue(int position, int symbol) {
+		return this.heuristic[position * this.alphabetLength + symbol];
+	}
+
+	public void setHeuristicInformationValue(int position, int symbol, double value) {
+		this.heuristic[position * this.alphabetLength + symbol] = value;
+		this.heuristicExponent = Double.NaN;
+	}
+
+	public void fillPheromone(double value) {
+		Arrays.fill(this.pheromone, value);
+		this.pheromoneScale = 1.0;
+	}
+
+	/**
+	 * Index in the underlying arrays where the given position starts
+	 * 
+	 * @param position
+	 * @return
+	 */
+	public int offset(int position) {
+		return position * this.alphabetLength;
+	}
+
+	public int getStrLength() {
+		return strLength;
+	}
+
+	public int getAlphabetLength() {
+		return alphabetLength;
+	}
+
+	/**
+	 * Stored pheromone values, relative to the scale factor. Updates writing
+	 * actual trails into the array must call {@link #normalizePheromone()}
+	 * first.
+	 * 
+	 * @return
+	 */
+	public double[] getPheromoneValues() {
+		return pheromone;
+	}
+
+	public double getPheromoneScale() {
+		return pheromoneScale;
+	}
+
+	public void setPheromoneScale(double pheromoneScale) {
+		this.pheromoneScale = pheromoneScale;
+	}
+
+	public double[] getHeuristicInformationValues() {
+		return heuristic;
+	}
+
+	/**
+	 * To be called after writing directly into the array returned by
+	 * {@link #getHeuristicInformationValues()}
+	 */
+	public void invalidateHeuristicPowers() {
+		this.heuristicExponent = Double.NaN;
+	}
+
+	/**
+	 * Heuristic values raised to the given exponent. The powers are cached and
+	 * only recomputed when the exponent or the heuristic values change.
+	 * 
+	 * @param exponent
+	 * @return
+	 */
+	public double[] getHeuristicPowerValues(double exponent) {
+		if (Double.compare(exponent, this.heuristicExponent) != 0) {
+			for (int i = 0; i < this.heuristic.length; i++) {
+				this.heuristicPower[i] = exponent == 1.0 ? this.heuristic[i] : Math.pow(this.heuristic[i], exponent);
+			}
+			this.heuristicExponent = exponent;
+		}
+		return heuristicPower;
+	}
+
+}
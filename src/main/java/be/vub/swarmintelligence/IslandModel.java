@@ -0,0 +1,204 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Island model: several independent colonies, each one with its own pheromone
+ * matrix and random stream, solve the same instance on their own threads.
+ * Every few iterations each colony publishes its best solution and adopts the
+ * one of its neighbour in a ring when it is better, optionally blending the
+ * neighbour's trails into its own.
+ *
+ * Colonies exchange solutions through single slot mailboxes that are only
+ * ever overwritten, so no colony waits for another one. The colonies
+ * themselves are reproducible for a given seed, but the solution a colony
+ * receives depends on how far its neighbour got, so the outcome of a run
+ * with migration is not.
+ *
+ */
+public class IslandModel {
+	private final static Logger LOGGER = Logger.getLogger(IslandModel.class);
+
+	private final List<CSPSolver> colonies;
+	private final AtomicReferenceArray<Migrant> mailboxes;
+	// Set when a colony proves its solution optimal or fails, stopping every
+	// colony
+	private final AtomicBoolean finished;
+	private final int migrationInterval;
+	private final double blend;
+
+	/**
+	 * Best solution of a colony at the time it was published. Never modified
+	 * once published.
+	 */
+	private static final class Migrant {
+		private final int[] path;
+		private final long maxHammingDistance;
+		private final long score;
+		// Copy of the colony's trails, null when not blending
+		private final double[] pheromone;
+
+		private Migrant(int[] path, long maxHammingDistance, long score, double[] pheromone) {
+			this.path = path;
+			this.maxHammingDistance = maxHammingDistance;
+			this.score = score;
+			this.pheromone = pheromone;
+		}
+	}
+
+	public IslandModel(Map<String, Object> cfg) throws IOException {
+		int islands = (Integer) cfg.get("islands");
+		this.migrationInterval = (Integer) cfg.getOrDefault("migration", 25);
+		this.blend = (Double) cfg.getOrDefault("blend", 0.0);
+		this.mailboxes = new AtomicReferenceArray<>(islands);
+		this.finished = new AtomicBoolean();
+		// The instance is loaded once and shared, the colonies only read it
+		CSPProblem problem = new CSPProblem((String) cfg.get("instance"));
+		RandomUtils seeds = new RandomUtils((Integer) cfg.get("seed"));
+		this.colonies = new ArrayList<>(islands);
+		for (int i = 0; i < islands; i++) {
+			Map<String, Object> colonyCfg = new HashMap<>(cfg);
+			colonyCfg.put("problem", problem);
+			colonyCfg.put("seed", seeds.nextInt());
+			// One thread per colony, the colonies provide the parallelism
+			colonyCfg.put("threads", 1);
+			colonyCfg.put("logiterations", false);
+			colonyCfg.remove("metrics");
+			colonyCfg.remove("checkpoint");
+			CSPSolver colony = App.createSolver(colonyCfg);
+			colony.setIterationListener(new Exchange(i));
+			colony.addTermination(new TerminationCriterion() {
+				@Override
+				public void start() {
+				}
+
+				@Override
+				public boolean terminate(CSPSolver solver) {
+					return IslandModel.this.finished.get() || Thread.currentThread().isInterrupted();
+				}
+			});
+			this.colonies.add(colony);
+		}
+		LOGGER.debug(islands + " colonies initialised, migrating every " + this.migrationInterval + " iterations");
+	}
+
+	/**
+	 * Runs every colony on its own thread until all of them terminate
+	 */
+	public void solve() {
+		ExecutorService executor = Executors.newFixedThreadPool(this.colonies.size());
+		try {
+			List<Future<?>> runs = new ArrayList<>();
+			for (CSPSolver colony : this.colonies) {
+				runs.add(executor.submit(colony::solve));
+			}
+			for (Future<?> run : runs) {
+				run.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A colony failed", e.getCause());
+		} finally {
+			// Stops the remaining colonies, if any, at their next iteration
+			this.finished.set(true);
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		CSPSolver best = this.getBestColony();
+		LOGGER.info("Best colony Score: " + best.getCurrentScore() + " Min: " + best.getCurrentMinHammingDistance()
+				+ " Max: " + best.getCurrentMaxHammingDistance() + " Gap: " + best.getOptimalityGap());
+	}
+
+	/**
+	 * Colonies of the model, in island order
+	 * 
+	 * @return
+	 */
+	List<CSPSolver> getColonies() {
+		return colonies;
+	}
+
+	/**
+	 * Colony holding the best solution: lowest maximum Hamming distance, then
+	 * lowest sum of distances
+	 * 
+	 * @return
+	 */
+	public CSPSolver getBestColony() {
+		CSPSolver best = this.colonies.get(0);
+		for (CSPSolver colony : this.colonies) {
+			if (BestSolution.isBetter(colony.getCurrentMaxHammingDistance(), colony.getCurrentScore(),
+					best.getCurrentMaxHammingDistance(), best.getCurrentScore())) {
+				best = colony;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Migration step of one colony, run on the colony's own thread
+	 */
+	private final class Exchange implements IterationListener {
+		private final int island;
+		// Last migrant taken, so the same trails are never blended twice
+		private Migrant received;
+
+		private Exchange(int island) {
+			this.island = island;
+		}
+
+		@Override
+		public void iterationCompleted(CSPSolver solver) {
+			if (solver.getOptimalityGap() <= 0) {
+				IslandModel.this.finished.set(true);
+			}
+			if (solver.getCurrentIter() % IslandModel.this.migrationInterval != 0) {
+				return;
+			}
+			double[] pheromone = null;
+			if (IslandModel.this.blend > 0.0) {
+				pheromone = solver.heuristicPheromone.copyPheromoneValues();
+			}
+			IslandModel.this.mailboxes.set(this.island, new Migrant(solver.getCurrentBestPath().clone(),
+					solver.getCurrentMaxHammingDistance(), solver.getCurrentScore(), pheromone));
+
+			int neighbour = (this.island + IslandModel.this.mailboxes.length() - 1)
+					% IslandModel.this.mailboxes.length();
+			Migrant migrant = IslandModel.this.mailboxes.get(neighbour);
+			if (migrant != null && migrant != this.received) {
+				this.received = migrant;
+				if (BestSolution.isBetter(migrant.maxHammingDistance, migrant.score, solver.getCurrentMaxHammingDistance(),
+						solver.getCurrentScore())) {
+					solver.acceptSolution(migrant.path);
+				}
+				if (migrant.pheromone != null) {
+					solver.blendPheromone(migrant.pheromone, IslandModel.this.blend);
+				}
+			}
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("Island: " + this.island + " Iteration: " + solver.getCurrentIter() + " Score: "
+						+ solver.getCurrentScore() + " Min: " + solver.getCurrentMinHammingDistance() + " Max: "
+						+ solver.getCurrentMaxHammingDistance() + " Gap: " + solver.getOptimalityGap());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,16 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Callback run by a solver at the end of every iteration, on the thread
+ * running the solver.
+ *
+ */
+public interface IterationListener {
+
+	/**
+	 * Called once the iteration counter has been increased
+	 * 
+	 * @param solver
+	 */
+	void iterationCompleted(CSPSolver solver);
+}
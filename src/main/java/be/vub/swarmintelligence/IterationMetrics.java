@@ -0,0 +1,148 @@
+package be.vub.swarmintelligence;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-iteration measurements of a solver, kept in preallocated ring buffers.
+ * The solver thread is the only producer: it marks the end of each phase with
+ * {@link #mark(int)} and commits the iteration with
+ * {@link #record(int, long, long, long, double)}. A single consumer, the
+ * {@link MetricsExporter}, drains the buffers from another thread. No lock is
+ * taken and nothing is allocated on the solver side; if the consumer falls
+ * behind, the new records are dropped and counted.
+ *
+ */
+public class IterationMetrics {
+
+	public static final int CONSTRUCTION = 0;
+	public static final int EVALUATION = 1;
+	public static final int PHEROMONE = 2;
+	public static final int PROBABILITY = 3;
+	public static final String[] PHASES = { "construction", "evaluation", "pheromone", "probability" };
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final int mask;
+	private final int[] iteration;
+	private final long[] phaseNanos;
+	private final long[] score;
+	private final long[] minHammingDistance;
+	private final long[] maxHammingDistance;
+	private final double[] entropy;
+	private final long[] allocatedBytes;
+
+	// Records written by the solver and read by the exporter
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong read = new AtomicLong();
+	private long dropped;
+
+	// State of the iteration in progress
+	private final long[] currentPhaseNanos = new long[PHASES.length];
+	private long lastMark;
+	private long allocatedAtStart;
+
+	/**
+	 * @param capacity
+	 *            number of iterations buffered, rounded up to a power of two
+	 */
+	public IterationMetrics(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.iteration = new int[size];
+		this.phaseNanos = new long[size * PHASES.length];
+		this.score = new long[size];
+		this.minHammingDistance = new long[size];
+		this.maxHammingDistance = new long[size];
+		this.entropy = new double[size];
+		this.allocatedBytes = new long[size];
+	}
+
+	/**
+	 * Starts measuring a new iteration
+	 */
+	public void begin() {
+		for (int p = 0; p < this.currentPhaseNanos.length; p++) {
+			this.currentPhaseNanos[p] = 0l;
+		}
+		this.allocatedAtStart = allocatedBytes();
+		this.lastMark = System.nanoTime();
+	}
+
+	/**
+	 * Adds the time elapsed since the previous mark to the given phase
+	 * 
+	 * @param phase
+	 */
+	public void mark(int phase) {
+		long now = System.nanoTime();
+		this.currentPhaseNanos[phase] += now - this.lastMark;
+		this.lastMark = now;
+	}
+
+	/**
+	 * Commits the measurements of the iteration in progress
+	 */
+	public void record(int iter, long currentScore, long currentMin, long currentMax, double pheromoneEntropy) {
+		long allocated = allocatedBytes();
+		long w = this.written.get();
+		if (w - this.read.get() > this.mask) {
+			this.dropped++;
+			return;
+		}
+		int idx = (int) (w & this.mask);
+		this.iteration[idx] = iter;
+		System.arraycopy(this.currentPhaseNanos, 0, this.phaseNanos, idx * PHASES.length, PHASES.length);
+		this.score[idx] = currentScore;
+		this.minHammingDistance[idx] = currentMin;
+		this.maxHammingDistance[idx] = currentMax;
+		this.entropy[idx] = pheromoneEntropy;
+		this.allocatedBytes[idx] = allocated < 0 ? -1l : allocated - this.allocatedAtStart;
+		this.written.lazySet(w + 1);
+	}
+
+	/**
+	 * Passes every pending record to the given consumer. To be called from the
+	 * consumer thread only.
+	 * 
+	 * @param consumer
+	 * @return number of records consumed
+	 */
+	public int drain(Consumer consumer) {
+		long r = this.read.get();
+		long w = this.written.get();
+		for (long i = r; i < w; i++) {
+			int idx = (int) (i & this.mask);
+			consumer.accept(this.iteration[idx], this.phaseNanos, idx * PHASES.length, this.score[idx],
+					this.minHammingDistance[idx], this.maxHammingDistance[idx], this.entropy[idx],
+					this.allocatedBytes[idx]);
+		}
+		this.read.lazySet(w);
+		return (int) (w - r);
+	}
+
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread, -1 if the JVM does not
+	 * expose it. Allocations made by pool workers are not included.
+	 */
+	private static long allocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread()
+					.getId());
+		}
+		return -1l;
+	}
+
+	/**
+	 * Receives the records drained from the buffers
+	 */
+	public interface Consumer {
+		void accept(int iteration, long[] phaseNanos, int phaseOffset, long score, long minHammingDistance,
+				long maxHammingDistance, double entropy, long allocatedBytes);
+	}
+}
@@ -0,0 +1,16 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Local search phase applied to the solutions built by the colony.
+ *
+ */
+public interface LocalSearch {
+
+	/**
+	 * Improves the solution loaded in the evaluator, leaving the result in it
+	 * 
+	 * @param evaluator
+	 * @return number of moves applied
+	 */
+	int improve(HammingEvaluator evaluator);
+}
@@ -0,0 +1,11 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Enumeration for the move selection strategies of the local search.
+ * FIRST applies the first improving move found, BEST scans the whole
+ * neighbourhood and applies the best move.
+ *
+ */
+public enum LocalSearchMode {
+	FIRST, BEST;
+}
@@ -0,0 +1,100 @@
+package be.vub.swarmintelligence;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Lower bounds on the maximum Hamming distance of any solution of a closest
+ * string problem instance. Two bounds are combined:
+ * 
+ * <ul>
+ * <li>Pairwise bound: by the triangle inequality any solution is at distance
+ * at least ceil(d/2) of one of two strings at distance d, so half of the
+ * largest pairwise distance, rounded up, is a bound. Pairs are compared with
+ * the packed distance kernel.</li>
+ * <li>Counting bound: at each position at least (n - count of the most
+ * frequent symbol) strings differ from the solution, and the maximum is at
+ * least the average of the resulting total.</li>
+ * </ul>
+ *
+ */
+public final class LowerBound {
+
+	private LowerBound() {
+	}
+
+	/**
+	 * Computes the best of both bounds for the given problem. The pairwise
+	 * distances are computed in the given pool when one is provided.
+	 * 
+	 * @param problem
+	 * @param pool
+	 *            may be null
+	 * @return
+	 */
+	public static long compute(CSPProblem problem, ForkJoinPool pool) {
+		return Math.max(pairwiseBound(problem, pool), countingBound(problem));
+	}
+
+	public static long pairwiseBound(CSPProblem problem, ForkJoinPool pool) {
+		PackedStrings packed = problem.getPackedStrings();
+		int numStr = packed.getNumStr();
+		int maxDistance;
+		if (pool == null) {
+			maxDistance = IntStream.range(0, numStr).map(i -> maxDistanceFrom(packed, i)).max().orElse(0);
+		} else {
+			maxDistance = pool.submit(() -> IntStream.range(0, numStr).parallel()
+					.map(i -> maxDistanceFrom(packed, i)).max().orElse(0)).join();
+		}
+		return (maxDistance + 1) / 2;
+	}
+
+	/**
+	 * Largest distance between the given string and the strings after it
+	 */
+	private static int maxDistanceFrom(PackedStrings packed, int str) {
+		int max = 0;
+		for (int other = str + 1; other < packed.getNumStr(); other++) {
+			max = Math.max(max, packed.distance(str, other));
+		}
+		return max;
+	}
+
+	public static long countingBound(CSPProblem problem) {
+		if (problem.getSymbolCounts() != null) {
+			return countingBound(problem.getSymbolCounts(), problem.getNumStr(), problem.getAlphabetLength());
+		}
+		byte[] columns = problem.getColumnSymbols();
+		int numStr = problem.getNumStr();
+		int[] counts = new int[problem.getAlphabetLength()];
+		long total = 0l;
+		for (int j = 0; j < problem.getStrLength(); j++) {
+			int mostFrequent = 0;
+			for (int s = j * numStr; s < (j + 1) * numStr; s++) {
+				mostFrequent = Math.max(mostFrequent, ++counts[columns[s] & 0xFF]);
+			}
+			total += numStr - mostFrequent;
+			for (int s = j * numStr; s < (j + 1) * numStr; s++) {
+				counts[columns[s] & 0xFF] = 0;
+			}
+		}
+		return (total + numStr - 1) / numStr;
+	}
+
+	/**
+	 * Same bound from the number of strings holding each symbol at each
+	 * position, as stored in binary instances
+	 */
+	private static long countingBound(int[] symbolCounts, int numStr, int alphabetLength) {
+		long total = 0l;
+		for (int offset = 0; offset < symbolCounts.length; offset += alphabetLength) {
+			int mostFrequent = 0;
+			for (int i = offset; i < offset + alphabetLength; i++) {
+				mostFrequent = Math.max(mostFrequent, symbolCounts[i]);
+			}
+			total += numStr - mostFrequent;
+		}
+		return (total + numStr - 1) / numStr;
+	}
+
+}
@@ -0,0 +1,236 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads an instance in the text format expected by {@link CSPProblem} by
+ * memory mapping the file. The header (alphabet size, number of strings,
+ * string length and alphabet) is parsed first and then every row is streamed
+ * byte by byte straight into the symbol matrix, so no intermediate
+ * {@link String} is created and the peak memory is close to the size of the
+ * matrix itself.
+ * 
+ * Symbols are read as single bytes, which covers the ASCII alphabets used by
+ * the instances. Files larger than 2GB are mapped in consecutive windows.
+ *
+ */
+public class MappedInstanceLoader {
+
+	private static final long WINDOW_SIZE = 1l << 30;
+
+	private final String fileLocation;
+
+	private int alphabetLength;
+	private int numStr;
+	private int strLength;
+	private List<Character> alphabet;
+	private byte[] symbols;
+
+	// Reading state
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long windowStart;
+	private long fileSize;
+	private int line;
+
+	public MappedInstanceLoader(String fileLocation) {
+		this.fileLocation = fileLocation;
+	}
+
+	public void load() throws IOException {
+		try (FileChannel fc = FileChannel.open(Paths.get(this.fileLocation), StandardOpenOption.READ)) {
+			this.channel = fc;
+			this.fileSize = fc.size();
+			this.windowStart = 0l;
+			this.line = 0;
+			this.map();
+			this.alphabetLength = this.readHeaderValue("alphabet length");
+			this.numStr = this.readHeaderValue("number of strings");
+			this.strLength = this.readHeaderValue("string length");
+			if (this.alphabetLength > 256) {
+				throw new IllegalStateException("Alphabets of more than 256 symbols are not supported");
+			}
+			int[] inverseAlphabet = this.readAlphabet();
+			this.readStrings(inverseAlphabet);
+		} finally {
+			this.channel = null;
+			this.buffer = null;
+		}
+	}
+
+	private void map() throws IOException {
+		long size = Math.min(WINDOW_SIZE, this.fileSize - this.windowStart);
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, size);
+	}
+
+	/**
+	 * Next byte of the file, -1 at its end
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private int next() throws IOException {
+		if (!this.buffer.hasRemaining()) {
+			this.windowStart += this.buffer.capacity();
+			if (this.windowStart >= this.fileSize) {
+				return -1;
+			}
+			this.map();
+		}
+		return this.buffer.get() & 0xFF;
+	}
+
+	private static boolean isBlank(int b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Reads a whole header line, trimmed. Only used for the few short lines
+	 * before the strings.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private String readHeaderLine() throws IOException {
+		this.line++;
+		StringBuilder sb = new StringBuilder();
+		int b = this.next();
+		while (b != '\n' && b != -1) {
+			sb.append((char) b);
+			b = this.next();
+		}
+		return sb.toString().trim();
+	}
+
+	private int readHeaderValue(String name) throws IOException {
+		String value = this.readHeaderLine();
+		int parsed;
+		try {
+			parsed = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException("Invalid " + name + " '" + value + "' at line " + this.line);
+		}
+		if (parsed < 1) {
+			throw new IllegalStateException("Invalid " + name + " '" + value + "' at line " + this.line);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Reads one symbol per line, returning the lookup table from byte value to
+	 * symbol index
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private int[] readAlphabet() throws IOException {
+		this.alphabet = new ArrayList<>(this.alphabetLength);
+		int[] inverseAlphabet = new int[256];
+		Arrays.fill(inverseAlphabet, -1);
+		for (int i = 0; i < this.alphabetLength; i++) {
+			String symbolLine = this.readHeaderLine();
+			if (symbolLine.isEmpty()) {
+				throw new IllegalStateException("Missing alphabet symbol at line " + this.line);
+			}
+			char symbol = symbolLine.charAt(0);
+			if (inverseAlphabet[symbol & 0xFF] >= 0) {
+				throw new IllegalStateException("Duplicate alphabet symbol '" + symbol + "' at line " + this.line);
+			}
+			this.alphabet.add(symbol);
+			inverseAlphabet[symbol & 0xFF] = i;
+		}
+		return inverseAlphabet;
+	}
+
+	/**
+	 * Streams the rows into the symbol matrix, checking the length of every
+	 * row and the number of rows. Blank lines are only accepted after the last
+	 * row, anywhere else they would hide a truncated or merged file.
+	 * 
+	 * @param inverseAlphabet
+	 * @throws IOException
+	 */
+	private void readStrings(int[] inverseAlphabet) throws IOException {
+		this.symbols = new byte[this.numStr * this.strLength];
+		int row = 0;
+		int column = 0;
+		int b = this.next();
+		this.line++;
+		while (b != -1) {
+			if (b == '\n') {
+				if (column > 0) {
+					this.checkRowLength(row, column);
+					row++;
+					column = 0;
+				} else if (row < this.numStr) {
+					throw new IllegalStateException("Blank line at line " + this.line + " before string " + row);
+				}
+				this.line++;
+			} else if (!isBlank(b)) {
+				if (row >= this.numStr) {
+					throw new IllegalStateException("Expected " + this.numStr + " strings but found more at line "
+							+ this.line);
+				}
+				if (column >= this.strLength) {
+					throw new IllegalStateException("String at line " + this.line + " is longer than "
+							+ this.strLength);
+				}
+				int idx = inverseAlphabet[b];
+				if (idx < 0) {
+					throw new IllegalStateException("Symbol '" + (char) b + "' at line " + this.line
+							+ " is not part of the alphabet");
+				}
+				this.symbols[row * this.strLength + column++] = (byte) idx;
+			}
+			b = this.next();
+		}
+		if (column > 0) {
+			this.checkRowLength(row, column);
+			row++;
+		}
+		if (row != this.numStr) {
+			throw new IllegalStateException("Expected " + this.numStr + " strings but found " + row);
+		}
+	}
+
+	private void checkRowLength(int row, int length) {
+		if (length != this.strLength) {
+			throw new IllegalStateException("String " + row + " at line " + this.line + " has length " + length
+					+ " instead of " + this.strLength);
+		}
+	}
+
+	public int getAlphabetLength() {
+		return alphabetLength;
+	}
+
+	public int getNumStr() {
+		return numStr;
+	}
+
+	public int getStrLength() {
+		return strLength;
+	}
+
+	public List<Character> getAlphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * Symbol index of every position of every string, one string after the
+	 * other
+	 * 
+	 * @return
+	 */
+	public byte[] getSymbols() {
+		return symbols;
+	}
+
+}
@@ -0,0 +1,24 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Stops once the given number of iterations has been run.
+ *
+ */
+public class MaxIterationsCriterion implements TerminationCriterion {
+
+	private final int maxIter;
+
+	public MaxIterationsCriterion(int maxIter) {
+		this.maxIter = maxIter;
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public boolean terminate(CSPSolver solver) {
+		return this.maxIter < solver.currentIter;
+	}
+
+}
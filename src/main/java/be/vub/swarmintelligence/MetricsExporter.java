@@ -0,0 +1,115 @@
+package be.vub.swarmintelligence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Background thread writing the records of an {@link IterationMetrics} to a
+ * file, either as CSV or as JSON lines, so that the solver thread never waits
+ * on I/O.
+ *
+ */
+public class MetricsExporter implements Runnable, IterationMetrics.Consumer {
+	private final static Logger LOGGER = Logger.getLogger(MetricsExporter.class);
+
+	private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final IterationMetrics metrics;
+	private final BufferedWriter writer;
+	private final boolean json;
+	private final StringBuilder sb = new StringBuilder();
+	private final Thread thread;
+	private volatile boolean running;
+
+	public MetricsExporter(IterationMetrics metrics, String fileLocation, boolean json) throws IOException {
+		this.metrics = metrics;
+		this.json = json;
+		this.writer = Files.newBufferedWriter(Paths.get(fileLocation), StandardCharsets.UTF_8);
+		if (!json) {
+			this.sb.append("iteration");
+			for (String phase : IterationMetrics.PHASES) {
+				this.sb.append(',').append(phase).append("_ns");
+			}
+			this.sb.append(",score,min,max,entropy,allocated_bytes\n");
+			this.writer.append(this.sb);
+		}
+		this.thread = new Thread(this, "metrics-exporter");
+		this.thread.setDaemon(true);
+	}
+
+	public void start() {
+		this.running = true;
+		this.thread.start();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (this.running) {
+				if (this.metrics.drain(this) == 0) {
+					LockSupport.parkNanos(POLL_NANOS);
+				}
+			}
+		} catch (UncheckedIOException e) {
+			LOGGER.error("Could not write metrics. Reason: " + e.getCause().getMessage());
+		}
+	}
+
+	/**
+	 * Stops the exporter, writing any pending record before closing the file
+	 */
+	public void close() {
+		this.running = false;
+		LockSupport.unpark(this.thread);
+		try {
+			this.thread.join();
+			this.metrics.drain(this);
+			this.writer.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | UncheckedIOException e) {
+			LOGGER.error("Could not write metrics. Reason: " + e.getMessage());
+		}
+		if (this.metrics.getDropped() > 0) {
+			LOGGER.warn(this.metrics.getDropped() + " iteration metrics were dropped");
+		}
+	}
+
+	@Override
+	public void accept(int iteration, long[] phaseNanos, int phaseOffset, long score, long minHammingDistance,
+			long maxHammingDistance, double entropy, long allocatedBytes) {
+		this.sb.setLength(0);
+		if (this.json) {
+			this.sb.append("{\"iteration\":").append(iteration);
+			for (int p = 0; p < IterationMetrics.PHASES.length; p++) {
+				this.sb.append(",\"").append(IterationMetrics.PHASES[p]).append("_ns\":")
+						.append(phaseNanos[phaseOffset + p]);
+			}
+			this.sb.append(",\"score\":").append(score).append(",\"min\":").append(minHammingDistance)
+					.append(",\"max\":").append(maxHammingDistance).append(",\"entropy\":").append(entropy)
+					.append(",\"allocated_bytes\":").append(allocatedBytes).append("}\n");
+		} else {
+			this.sb.append(iteration);
+			for (int p = 0; p < IterationMetrics.PHASES.length; p++) {
+				this.sb.append(',').append(phaseNanos[phaseOffset + p]);
+			}
+			this.sb.append(',').append(score).append(',').append(minHammingDistance).append(',')
+					.append(maxHammingDistance).append(',').append(entropy).append(',').append(allocatedBytes)
+					.append('\n');
+		}
+		try {
+			this.writer.append(this.sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Bit-packed representation of the strings of an instance, used to compute
+ * Hamming distances several symbols at a time. Every symbol index is stored in
+ * a lane of {@link #getBitsPerSymbol()} bits and as many lanes as fit are
+ * packed into each <code>long</code> word (32 symbols per word for DNA, 12 for
+ * protein alphabets).
+ * 
+ * The distance between two packed words is obtained by XOR-ing them, folding
+ * the bits of every lane into its lowest bit and counting the set bits, so a
+ * whole word of symbols is compared with a handful of instructions.
+ *
+ */
+public class PackedStrings {
+
+	private final int numStr;
+	private final int strLength;
+	private final int bitsPerSymbol;
+	private final int symbolsPerWord;
+	private final int wordsPerString;
+	// Lowest bit of every lane in a word
+	private final long laneMask;
+	private final long[] words;
+
+	/**
+	 * Packs the given symbol matrix, holding the symbol index of every position
+	 * of every string one string after the other.
+	 * 
+	 * @param symbols
+	 * @param numStr
+	 * @param strLength
+	 * @param alphabetLength
+	 */
+	public PackedStrings(byte[] symbols, int numStr, int strLength, int alphabetLength) {
+		this(new long[numStr * wordsPerString(strLength, alphabetLength)], numStr, strLength, alphabetLength);
+		for (int s = 0; s < numStr; s++) {
+			int strOffset = s * strLength;
+			int wordOffset = s * this.wordsPerString;
+			for (int j = 0; j < strLength; j++) {
+				this.words[wordOffset + j / this.symbolsPerWord] |= ((long) (symbols[strOffset + j] & 0xFF)) << ((j
+						% this.symbolsPerWord) * this.bitsPerSymbol);
+			}
+		}
+	}
+
+	/**
+	 * Wraps words already packed with the layout used by this class, e.g. read
+	 * from a binary instance
+	 * 
+	 * @param words
+	 * @param numStr
+	 * @param strLength
+	 * @param alphabetLength
+	 */
+	public PackedStrings(long[] words, int numStr, int strLength, int alphabetLength) {
+		this.numStr = numStr;
+		this.strLength = strLength;
+		this.bitsPerSymbol = bitsPerSymbol(alphabetLength);
+		this.symbolsPerWord = Long.SIZE / this.bitsPerSymbol;
+		this.wordsPerString = wordsPerString(strLength, alphabetLength);
+		if (words.length != numStr * this.wordsPerString) {
+			throw new IllegalStateException("Expected " + numStr * this.wordsPerString + " packed words but got "
+					+ words.length);
+		}
+		long mask = 0l;
+		for (int lane = 0; lane < this.symbolsPerWord; lane++) {
+			mask |= 1l << (lane * this.bitsPerSymbol);
+		}
+		this.laneMask = mask;
+		this.words = words;
+	}
+
+	/**
+	 * Number of words needed to store a string
+	 * 
+	 * @param strLength
+	 * @param alphabetLength
+	 * @return
+	 */
+	public static int wordsPerString(int strLength, int alphabetLength) {
+		int symbolsPerWord = Long.SIZE / bitsPerSymbol(alphabetLength);
+		return (strLength + symbolsPerWord - 1) / symbolsPerWord;
+	}
+
+	/**
+	 * Number of bits needed to store any index of an alphabet of the given size
+	 * 
+	 * @param alphabetLength
+	 * @return
+	 */
+	public static int bitsPerSymbol(int alphabetLength) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(alphabetLength - 1));
+	}
+
+	/**
+	 * Creates a buffer able to hold one packed solution
+	 * 
+	 * @return
+	 */
+	public long[] newBuffer() {
+		return new long[this.wordsPerString];
+	}
+
+	/**
+	 * Packs a solution given as symbol indexes into the given buffer
+	 * 
+	 * @param path
+	 * @param packed
+	 */
+	public void pack(int[] path, long[] packed) {
+		for (int w = 0, j = 0; w < this.wordsPerString; w++) {
+			long word = 0l;
+			for (int lane = 0; lane < this.symbolsPerWord && j < this.strLength; lane++, j++) {
+				word |= ((long) path[j]) << (lane * this.bitsPerSymbol);
+			}
+			packed[w] = word;
+		}
+	}
+
+	/**
+	 * Symbol index at the given position of the given string
+	 * 
+	 * @param str
+	 * @param pos
+	 * @return
+	 */
+	public int symbol(int str, int pos) {
+		long word = this.words[str * this.wordsPerString + pos / this.symbolsPerWord];
+		return (int) ((word >>> ((pos % this.symbolsPerWord) * this.bitsPerSymbol)) & ((1l << this.bitsPerSymbol) - 1));
+	}
+
+	/**
+	 * Unpacks all the strings into a byte per symbol matrix, one string after
+	 * the other
+	 * 
+	 * @param symbols
+	 */
+	public void unpack(byte[] symbols) {
+		long symbolMask = (1l << this.bitsPerSymbol) - 1;
+		for (int s = 0; s < this.numStr; s++) {
+			int wordOffset = s * this.wordsPerString;
+			for (int j = 0; j < this.strLength; j++) {
+				long word = this.words[wordOffset + j / this.symbolsPerWord];
+				symbols[s * this.strLength + j] = (byte) ((word >>> ((j % this.symbolsPerWord)
+						* this.bitsPerSymbol)) & symbolMask);
+			}
+		}
+	}
+
+	/**
+	 * Hamming distance between the string with the given index and a packed
+	 * solution
+	 * 
+	 * @param str
+	 * @param packed
+	 * @return
+	 */
+	public int distance(int str, long[] packed) {
+		return this.distance(this.words, str * this.wordsPerString, packed, 0);
+	}
+
+	/**
+	 * Hamming distance between two strings of the instance
+	 * 
+	 * @param str1
+	 * @param str2
+	 * @return
+	 */
+	public int distance(int str1, int str2) {
+		return this.distance(this.words, str1 * this.wordsPerString, this.words, str2 * this.wordsPerString);
+	}
+
+	private int distance(long[] a, int aOffset, long[] b, int bOffset) {
+		int hd = 0;
+		for (int w = 0; w < this.wordsPerString; w++) {
+			long x = a[aOffset + w] ^ b[bOffset + w];
+			long folded = x;
+			for (int s = 1; s < this.bitsPerSymbol; s++) {
+				folded |= x >>> s;
+			}
+			hd += Long.bitCount(folded & this.laneMask);
+		}
+		return hd;
+	}
+
+	public int getNumStr() {
+		return numStr;
+	}
+
+	public int getStrLength() {
+		return strLength;
+	}
+
+	public int getBitsPerSymbol() {
+		return bitsPerSymbol;
+	}
+
+	public int getWordsPerString() {
+		return wordsPerString;
+	}
+
+	/**
+	 * Packed words of all the strings, one string after the other
+	 * 
+	 * @return
+	 */
+	public long[] getWords() {
+		return words;
+	}
+
+}
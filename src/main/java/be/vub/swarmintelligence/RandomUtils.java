@@ -1,103 +1,135 @@
 package be.vub.swarmintelligence;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-
+/**
+ * Seedable and splittable random number generator. It follows the SplitMix64
+ * algorithm used by {@link java.util.SplittableRandom}, but keeps its state
+ * accessible so that runs can be reproduced exactly.
+ * 
+ * Instances are not thread-safe. Instead of sharing one generator, every ant
+ * or worker gets its own stream through {@link #split()}, so the whole run is
+ * deterministic for a given seed without any contention between threads.
+ * 
+ * @author fabio
+ *
+ */
 public class RandomUtils {
 
-	private static RandomUtils instance = null;
-	private final Random random;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private long seed;
+	private long gamma;
 
-	private RandomUtils(Integer seed) {
-		random = new Random(seed);
+	public RandomUtils(long seed) {
+		this(seed, GOLDEN_GAMMA);
 	}
 
-	public static RandomUtils getInstance(Integer seed) {
-		if (instance == null && seed != null) {
-			instance = new RandomUtils(seed);
-		}
-		return instance;
+	private RandomUtils(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getGamma() {
+		return gamma;
 	}
 
 	/**
-	 * Returns an unbounded random integer
+	 * Puts the stream back in a state obtained from {@link #getSeed()} and
+	 * {@link #getGamma()}, e.g. when resuming a run
 	 * 
-	 * @return
+	 * @param seed
+	 * @param gamma
 	 */
-	public Integer getRandomInt() {
-		return random.nextInt();
+	public void setState(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	private long nextSeed() {
+		return this.seed += this.gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
 	}
 
 	/**
-	 * Returns a bounded random integer
+	 * Creates a new, statistically independent random stream derived from this
+	 * one. Used to give each ant or worker its own generator.
 	 * 
-	 * @param upperBound
 	 * @return
 	 */
-	public Integer getRandomInt(Integer upperBound) {
-		Integer aux = random.nextInt(upperBound);
-		return aux;
+	public RandomUtils split() {
+		return new RandomUtils(nextLong(), mixGamma(nextSeed()));
 	}
 
 	/**
-	 * Returns a random double between 0.0 (inclusive) and 1.0 (exclusive)
+	 * Returns an unbounded random long
 	 * 
 	 * @return
 	 */
-	public Double getRandomDouble() {
-		return random.nextDouble();
+	public long nextLong() {
+		return mix64(nextSeed());
 	}
 
-	public Random getRandom() {
-		return random;
+	/**
+	 * Returns an unbounded random integer
+	 * 
+	 * @return
+	 */
+	public int nextInt() {
+		return mix32(nextSeed());
 	}
 
 	/**
-	 * Returns a random element from a list given the probability items in an
-	 * {@link Map.Entry<Integer, Double>} format, where the key of the entry is
-	 * the element and the value is its probability.
+	 * Returns a random integer between 0 (inclusive) and the given bound
+	 * (exclusive)
 	 * 
-	 * Asumes that the list of elements total 1.0 for the sum of their
-	 * probabilities.
-	 * 
-	 * @param list
+	 * @param upperBound
 	 * @return
 	 */
-	public Integer getRandomFromList(List<Map.Entry<Integer, Double>> list) {
-		Double prob = getRandomDouble();
-		Double sum = 0.0;
-		for (Map.Entry<Integer, Double> elem : list) {
-			sum += elem.getValue();
-			if (prob.compareTo(sum) <= 0) {
-				return elem.getKey();
+	public int nextInt(int upperBound) {
+		if (upperBound <= 0) {
+			throw new IllegalArgumentException("The upper bound must be positive");
+		}
+		int r = mix32(nextSeed());
+		int m = upperBound - 1;
+		if ((upperBound & m) == 0) {
+			r &= m;
+		} else {
+			for (int u = r >>> 1; u + m - (r = u % upperBound) < 0; u = mix32(nextSeed()) >>> 1) {
+				// reject values that would bias the result
 			}
 		}
-		throw new IllegalStateException("The probabilities of the given elements don't sum 1.0");
+		return r;
 	}
 
 	/**
-	 * Returns the index of a random element picked from a list given as
-	 * probability values {@link List<Double>}.
-	 * 
-	 * Asumes that the list of elements total 1.0 for the sum of their
-	 * probabilities.
+	 * Returns a random double between 0.0 (inclusive) and 1.0 (exclusive)
 	 * 
-	 * @param list
 	 * @return
 	 */
-	public Integer getRandomFromSimpleList(List<Double> list) {
-		double p = getRandomDouble();
-		double cumulativeProbability = 0.0;
-		Integer idx = 0;
-		for (Double item : list) {
-			cumulativeProbability += item;
-			if (p <= cumulativeProbability) {
-				return idx;
-			}
-			idx++;
-		}
-		throw new IllegalStateException("The probabilities of the given elements don't sum 1.0");
+	public double nextDouble() {
+		return (mix64(nextSeed()) >>> 11) * DOUBLE_UNIT;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Draws the symbol to be used at each position of a solution. Implementations
+ * precompute whatever tables they need from the probability matrix once per
+ * iteration in {@link #update(DoubleMatrix)}, so that the draws done by every
+ * ant are cheap and do not allocate.
+ * 
+ * Implementations must allow concurrent calls to
+ * {@link #sample(int, RandomUtils)} once the tables are built.
+ *
+ */
+public interface Sampler {
+
+	/**
+	 * Rebuilds the sampling tables from the given probabilities
+	 * 
+	 * @param probability
+	 */
+	void update(DoubleMatrix probability);
+
+	/**
+	 * Rebuilds the sampling tables of the given positions only, the first
+	 * <code>count</code> entries of <code>positions</code>
+	 * 
+	 * @param probability
+	 * @param positions
+	 * @param count
+	 */
+	void update(DoubleMatrix probability, int[] positions, int count);
+
+	/**
+	 * Returns the index of the symbol picked for the given position
+	 * 
+	 * @param position
+	 * @param randUtils
+	 * @return
+	 */
+	int sample(int position, RandomUtils randUtils);
+
+	/**
+	 * Notifies that the pheromone update since the last
+	 * {@link #update(DoubleMatrix)} evaporated every trail and reinforced the
+	 * given path, so that the symbols of the path are the only ones that may
+	 * have become more likely. Samplers tracking the ranking of the symbols
+	 * use it to rebuild their tables incrementally.
+	 * 
+	 * @param path
+	 */
+	default void reinforced(int[] path) {
+	}
+
+	/**
+	 * Notifies that the probabilities changed in some other way, e.g. because
+	 * the trails were reinitialised, so that the next
+	 * {@link #update(DoubleMatrix)} cannot rely on the previous tables.
+	 */
+	default void reset() {
+	}
+
+	int getStrLength();
+}
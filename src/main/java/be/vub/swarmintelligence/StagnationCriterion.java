@@ -0,0 +1,34 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Stops when the maximum Hamming distance of the best solution has not
+ * improved for the given number of iterations.
+ *
+ */
+public class StagnationCriterion implements TerminationCriterion {
+
+	private final int maxIterationsWithoutImprovement;
+	private long bestMaxHammingDistance;
+	private int lastImprovement;
+
+	public StagnationCriterion(int maxIterationsWithoutImprovement) {
+		this.maxIterationsWithoutImprovement = maxIterationsWithoutImprovement;
+	}
+
+	@Override
+	public void start() {
+		this.bestMaxHammingDistance = Long.MAX_VALUE;
+		this.lastImprovement = 0;
+	}
+
+	@Override
+	public boolean terminate(CSPSolver solver) {
+		long current = solver.getCurrentMaxHammingDistance();
+		if (current < this.bestMaxHammingDistance) {
+			this.bestMaxHammingDistance = current;
+			this.lastImprovement = solver.currentIter;
+		}
+		return solver.currentIter - this.lastImprovement >= this.maxIterationsWithoutImprovement;
+	}
+
+}
@@ -0,0 +1,25 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Stops as soon as the best solution reaches the given maximum Hamming
+ * distance.
+ *
+ */
+public class TargetScoreCriterion implements TerminationCriterion {
+
+	private final long targetMaxHammingDistance;
+
+	public TargetScoreCriterion(long targetMaxHammingDistance) {
+		this.targetMaxHammingDistance = targetMaxHammingDistance;
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public boolean terminate(CSPSolver solver) {
+		return solver.getCurrentMaxHammingDistance() <= this.targetMaxHammingDistance;
+	}
+
+}
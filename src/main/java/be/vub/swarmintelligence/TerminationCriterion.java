@@ -0,0 +1,22 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Condition deciding when a solver stops. Checked once per iteration, so
+ * implementations must be cheap.
+ *
+ */
+public interface TerminationCriterion {
+
+	/**
+	 * Called once when the solver starts iterating
+	 */
+	void start();
+
+	/**
+	 * Whether the solver should stop given its current state
+	 * 
+	 * @param solver
+	 * @return
+	 */
+	boolean terminate(CSPSolver solver);
+}
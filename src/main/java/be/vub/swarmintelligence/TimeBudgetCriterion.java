@@ -0,0 +1,31 @@
+package be.vub.swarmintelligence;
+
+/**
+ * Stops once the given wall-clock budget is spent, measured with the
+ * monotonic {@link System#nanoTime()} clock from the given start, so that the
+ * setup of the solver can be included in the budget.
+ *
+ */
+public class TimeBudgetCriterion implements TerminationCriterion {
+
+	private final long deadline;
+
+	/**
+	 * @param budgetNanos
+	 * @param startNanos
+	 *            {@link System#nanoTime()} value the budget is counted from
+	 */
+	public TimeBudgetCriterion(long budgetNanos, long startNanos) {
+		this.deadline = startNanos + budgetNanos;
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public boolean terminate(CSPSolver solver) {
+		return System.nanoTime() - this.deadline >= 0;
+	}
+
+}
@@ -0,0 +1,95 @@
+package be.vub.swarmintelligence;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * The alias tables must reproduce the given distribution, including symbols
+ * that can never be drawn
+ */
+public class AliasSamplerTest
+    extends TestCase
+{
+    private static final int DRAWS = 200000;
+
+    // Skewed rows with zero probabilities, leaving several columns on the
+    // small and large work lists, a certain symbol and a sum off by rounding
+    private static final double[][] ROWS = { { 0.5, 0.2, 0.0, 0.1, 0.05, 0.05, 0.06, 0.04 },
+                                             { 0.0, 0.0, 0.9, 0.0, 0.0, 0.0, 0.0, 0.1 },
+                                             { 0.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0 },
+                                             { 0.125, 0.125, 0.125, 0.125, 0.125, 0.125, 0.125, 0.125 },
+                                             { 0.3, 0.3, 0.1, 0.1, 0.1, 0.05, 0.05 - 1e-12, 0.0 } };
+
+    public AliasSamplerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AliasSamplerTest.class );
+    }
+
+    private static DoubleMatrix probabilities()
+    {
+        DoubleMatrix probability = new DoubleMatrix( ROWS.length, ROWS[0].length );
+        for ( int j = 0; j < ROWS.length; j++ )
+        {
+            for ( int i = 0; i < ROWS[j].length; i++ )
+            {
+                probability.set( j, i, ROWS[j][i] );
+            }
+        }
+        return probability;
+    }
+
+    private static void checkFrequencies( Sampler sampler, int position, RandomUtils randUtils )
+    {
+        double[] row = ROWS[position];
+        double sum = 0.0;
+        for ( double p : row )
+        {
+            sum += p;
+        }
+        int[] counts = new int[row.length];
+        for ( int d = 0; d < DRAWS; d++ )
+        {
+            counts[sampler.sample( position, randUtils )]++;
+        }
+        for ( int i = 0; i < row.length; i++ )
+        {
+            double p = row[i] / sum;
+            double tolerance = 5 * Math.sqrt( p * ( 1 - p ) / DRAWS ) + 1e-9;
+            assertEquals( "Symbol " + i + " of position " + position, p, counts[i] / (double) DRAWS, tolerance );
+            if ( row[i] == 0.0 )
+            {
+                assertEquals( "Symbol " + i + " of position " + position, 0, counts[i] );
+            }
+        }
+    }
+
+    public void testFrequencies()
+    {
+        AliasSampler sampler = new AliasSampler( ROWS.length, ROWS[0].length );
+        sampler.update( probabilities() );
+        RandomUtils randUtils = new RandomUtils( 3 );
+        for ( int j = 0; j < ROWS.length; j++ )
+        {
+            checkFrequencies( sampler, j, randUtils );
+        }
+    }
+
+    /**
+     * Rebuilding some positions only must leave them as a full rebuild does
+     */
+    public void testPartialUpdate()
+    {
+        AliasSampler sampler = new AliasSampler( ROWS.length, ROWS[0].length );
+        sampler.update( new DoubleMatrix( ROWS.length, ROWS[0].length, 1.0 / ROWS[0].length ) );
+        sampler.update( probabilities(), new int[] { 1, 4 }, 2 );
+        RandomUtils randUtils = new RandomUtils( 5 );
+        checkFrequencies( sampler, 1, randUtils );
+        checkFrequencies( sampler, 4, randUtils );
+    }
+}
@@ -0,0 +1,140 @@
+package be.vub.swarmintelligence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * A text instance converted to the binary format must load back identically
+ */
+public class BinaryInstanceFormatTest
+    extends TestCase
+{
+    public BinaryInstanceFormatTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BinaryInstanceFormatTest.class );
+    }
+
+    private static void checkRoundTrip( int alphabetLength, int numStr, int strLength ) throws IOException
+    {
+        CSPProblem text = new CSPProblem( TestInstances.write( alphabetLength, numStr, strLength, alphabetLength ) );
+        File file = File.createTempFile( "csp-", ".bin" );
+        file.deleteOnExit();
+        BinaryInstanceFormat.write( text, file.getPath() );
+        assertTrue( BinaryInstanceFormat.isBinary( file.getPath() ) );
+        CSPProblem binary = new CSPProblem( file.getPath() );
+
+        assertEquals( text.getAlphabetLength(), binary.getAlphabetLength() );
+        assertEquals( text.getNumStr(), binary.getNumStr() );
+        assertEquals( text.getStrLength(), binary.getStrLength() );
+        assertEquals( text.getAlphabet(), binary.getAlphabet() );
+        assertTrue( Arrays.equals( text.getPackedStrings().getWords(), binary.getPackedStrings().getWords() ) );
+        for ( int s = 0; s < numStr; s++ )
+        {
+            assertEquals( text.getString( s ), binary.getString( s ) );
+        }
+
+        int[] counts = new int[strLength * alphabetLength];
+        byte[] symbols = text.getSymbols();
+        for ( int s = 0; s < numStr; s++ )
+        {
+            for ( int j = 0; j < strLength; j++ )
+            {
+                counts[j * alphabetLength + ( symbols[s * strLength + j] & 0xFF )]++;
+            }
+        }
+        assertTrue( Arrays.equals( counts, binary.getSymbolCounts() ) );
+        assertEquals( LowerBound.countingBound( text ), LowerBound.countingBound( binary ) );
+
+        // Byte per symbol copies, only built when asked for
+        assertTrue( Arrays.equals( text.getSymbols(), binary.getSymbols() ) );
+        assertTrue( Arrays.equals( text.getColumnSymbols(), binary.getColumnSymbols() ) );
+    }
+
+    public void testDnaAlphabet() throws IOException
+    {
+        checkRoundTrip( 4, 12, 70 );
+    }
+
+    public void testProteinAlphabet() throws IOException
+    {
+        checkRoundTrip( 20, 9, 50 );
+    }
+
+    public void testLargeAlphabet() throws IOException
+    {
+        checkRoundTrip( 200, 7, 33 );
+    }
+
+    /**
+     * Overwrites one of the header ints of a valid binary instance and checks
+     * that loading it fails cleanly
+     */
+    private static void checkCorruptHeader( int field, int value, String message ) throws IOException
+    {
+        CSPProblem text = new CSPProblem( TestInstances.write( 20, 9, 50, 1 ) );
+        File file = File.createTempFile( "csp-", ".bin" );
+        file.deleteOnExit();
+        BinaryInstanceFormat.write( text, file.getPath() );
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) )
+        {
+            raf.seek( field * Integer.BYTES );
+            // Little endian, as the format
+            raf.writeInt( Integer.reverseBytes( value ) );
+        }
+        try
+        {
+            new CSPProblem( file.getPath() );
+            fail( "Expected an error containing '" + message + "'" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertTrue( "Unexpected error: " + e.getMessage(), e.getMessage().contains( message ) );
+        }
+    }
+
+    public void testCorruptHeader() throws IOException
+    {
+        // Fields: magic, version, alphabet length, strings, length, bits
+        checkCorruptHeader( 1, 7, "Unsupported binary instance version 7" );
+        checkCorruptHeader( 2, 0, "Invalid binary instance header" );
+        checkCorruptHeader( 2, 1000, "Invalid binary instance header" );
+        checkCorruptHeader( 3, -9, "Invalid binary instance header" );
+        checkCorruptHeader( 4, 0, "Invalid binary instance header" );
+        checkCorruptHeader( 5, 3, "Unexpected packing of 3 bits per symbol" );
+        // Sizes that would overflow an int, or allocate gigabytes, before
+        // the size of the file is checked
+        checkCorruptHeader( 3, Integer.MAX_VALUE, "should have" );
+        checkCorruptHeader( 4, Integer.MAX_VALUE, "should have" );
+        checkCorruptHeader( 3, 10, "should have" );
+    }
+
+    public void testTruncatedFile() throws IOException
+    {
+        File file = File.createTempFile( "csp-", ".bin" );
+        file.deleteOnExit();
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) )
+        {
+            raf.writeInt( Integer.reverseBytes( BinaryInstanceFormat.MAGIC ) );
+        }
+        try
+        {
+            new BinaryInstanceLoader( file.getPath() ).load();
+            fail( "A truncated header was accepted" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertTrue( e.getMessage().contains( "is not a binary instance" ) );
+        }
+    }
+}
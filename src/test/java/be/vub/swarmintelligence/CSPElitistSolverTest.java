@@ -0,0 +1,126 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Regression test of the elitist solver on a small instance with a fixed
+ * seed.
+ */
+public class CSPElitistSolverTest
+    extends TestCase
+{
+    public CSPElitistSolverTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CSPElitistSolverTest.class );
+    }
+
+    private static Map<String, Object> config( DepositStrategy deposit )
+    {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put( "instance", CSPElitistSolverTest.class.getResource( "/small.txt" ).getPath() );
+        cfg.put( "algorithm", Algorithm.ELITIST );
+        cfg.put( "seed", 1234 );
+        cfg.put( "numants", 20 );
+        cfg.put( "alpha", 1.0 );
+        cfg.put( "rho", 0.003 );
+        cfg.put( "epsilon", 0.5 );
+        cfg.put( "maxiter", 100 );
+        cfg.put( "deposit", deposit );
+        cfg.put( "logiterations", false );
+        return cfg;
+    }
+
+    /**
+     * The reported scores must be the ones of the reported solution, and the
+     * best solution must never get worse
+     */
+    private static CSPSolver solveChecked( DepositStrategy deposit ) throws IOException
+    {
+        CSPSolver solver = new CSPElitistSolver( config( deposit ) );
+        final long[] previous = { Long.MAX_VALUE, Long.MAX_VALUE };
+        solver.setIterationListener( s -> {
+            assertFalse( "The best solution got worse at iteration " + s.getCurrentIter(),
+                    BestSolution.isBetter( previous[0], previous[1], s.getCurrentMaxHammingDistance(),
+                            s.getCurrentScore() ) );
+            previous[0] = s.getCurrentMaxHammingDistance();
+            previous[1] = s.getCurrentScore();
+        } );
+        solver.solve();
+
+        String solution = solver.getBestSolution();
+        long sum = 0;
+        long max = 0;
+        long min = Long.MAX_VALUE;
+        for ( int s = 0; s < solver.problem.getNumStr(); s++ )
+        {
+            String str = solver.problem.getString( s );
+            long hd = 0;
+            for ( int j = 0; j < str.length(); j++ )
+            {
+                if ( str.charAt( j ) != solution.charAt( j ) )
+                {
+                    hd++;
+                }
+            }
+            sum += hd;
+            max = Math.max( max, hd );
+            min = Math.min( min, hd );
+        }
+        assertEquals( sum, solver.getCurrentScore() );
+        assertEquals( max, solver.getCurrentMaxHammingDistance() );
+        assertEquals( min, solver.getCurrentMinHammingDistance() );
+        return solver;
+    }
+
+    public void testGlobalBest() throws IOException
+    {
+        CSPSolver solver = solveChecked( DepositStrategy.GLOBAL );
+        assertEquals( 28, solver.getCurrentMaxHammingDistance() );
+        assertEquals( 253, solver.getCurrentScore() );
+        assertEquals( "CAGATTTTCATATTATGCAGAAAATCTACTTCGACTGAGACGAGTCGGTTACCTTCGGATTCTGTATAGTCCAACCTGCAGATCGTATGCTTGTGAGTAC",
+                solver.getBestSolution() );
+    }
+
+    public void testIterationBest() throws IOException
+    {
+        solveChecked( DepositStrategy.ITERATION );
+    }
+
+    public void testReproducible() throws IOException
+    {
+        assertEquals( solveChecked( DepositStrategy.GLOBAL ).getBestSolution(),
+                solveChecked( DepositStrategy.GLOBAL ).getBestSolution() );
+    }
+
+    /**
+     * A single string is matched exactly, the deposit for a distance of 0
+     * must not turn the trails infinite
+     */
+    public void testZeroDistance() throws IOException
+    {
+        for ( DepositStrategy deposit : DepositStrategy.values() )
+        {
+            Map<String, Object> cfg = config( deposit );
+            cfg.put( "instance", TestInstances.write( 2, 1, 8, 3 ) );
+            cfg.put( "maxiter", 1000 );
+            CSPSolver solver = new CSPElitistSolver( cfg );
+            solver.solve();
+            assertEquals( 0, solver.getCurrentMaxHammingDistance() );
+            for ( double tau : solver.heuristicPheromone.copyPheromoneValues() )
+            {
+                assertFalse( Double.isInfinite( tau ) || Double.isNaN( tau ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Regression test of the MAX-MIN solver on a small instance with a fixed
+ * seed, and of the trail limits it enforces.
+ */
+public class CSPMinMaxSolverTest
+    extends TestCase
+{
+    public CSPMinMaxSolverTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CSPMinMaxSolverTest.class );
+    }
+
+    private static Map<String, Object> config( int maxIter )
+    {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put( "instance", CSPMinMaxSolverTest.class.getResource( "/small.txt" ).getPath() );
+        cfg.put( "algorithm", Algorithm.MINMAX );
+        cfg.put( "seed", 1234 );
+        cfg.put( "numants", 20 );
+        cfg.put( "alpha", 1.0 );
+        cfg.put( "rho", 0.02 );
+        cfg.put( "maxiter", maxIter );
+        cfg.put( "logiterations", false );
+        return cfg;
+    }
+
+    public void testFixedSeed() throws IOException
+    {
+        CSPSolver solver = new CSPMinMaxSolver( config( 400 ) );
+        solver.solve();
+        assertEquals( 27, solver.getCurrentMaxHammingDistance() );
+        assertEquals( 249, solver.getCurrentScore() );
+        assertEquals( "CAGCTTTTCATATTATGCAGAAAATCTACTTCGACTGTGACGAGTCGGTTATCTTCGGATTCTGTATAGTCCAACCTGGAGATCCTATGCTGGTGAGTAC",
+                solver.getBestSolution() );
+    }
+
+    /**
+     * Every trail must stay within [tauMin, tauMax] after each update, and a
+     * restart must set them all back to tauMax
+     */
+    public void testTrailLimits() throws IOException
+    {
+        Map<String, Object> cfg = config( 300 );
+        // Frequent restarts, so that several happen during the run
+        cfg.put( "restart", 15 );
+        final CSPMinMaxSolver solver = new CSPMinMaxSolver( cfg );
+        final int[] restarts = { 0 };
+        solver.setIterationListener( s -> {
+            double tauMax = solver.getTauMax();
+            double tauMin = solver.getTauMin();
+            assertTrue( tauMin > 0.0 );
+            assertTrue( tauMin <= tauMax );
+            boolean allMax = true;
+            for ( double tau : solver.heuristicPheromone.copyPheromoneValues() )
+            {
+                assertTrue( "Trail " + tau + " below tauMin " + tauMin + " at iteration " + s.getCurrentIter(),
+                        tau >= tauMin * ( 1 - 1e-12 ) );
+                assertTrue( "Trail " + tau + " above tauMax " + tauMax + " at iteration " + s.getCurrentIter(),
+                        tau <= tauMax * ( 1 + 1e-12 ) );
+                allMax &= tau == tauMax;
+            }
+            if ( allMax )
+            {
+                restarts[0]++;
+            }
+        } );
+        solver.solve();
+        assertTrue( "No restart happened", restarts[0] > 0 );
+    }
+}
@@ -0,0 +1,155 @@
+package be.vub.swarmintelligence;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * The candidate lists must sample the given distribution exactly, and their
+ * incremental updates must keep the same lists as a rebuild from scratch
+ */
+public class CandidateListSamplerTest
+    extends TestCase
+{
+    private static final int DRAWS = 200000;
+
+    public CandidateListSamplerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CandidateListSamplerTest.class );
+    }
+
+    /**
+     * Random probabilities, normalised per position, without ties
+     */
+    private static DoubleMatrix randomProbabilities( int strLength, int alphabetLength, Random random )
+    {
+        DoubleMatrix probability = new DoubleMatrix( strLength, alphabetLength );
+        for ( int j = 0; j < strLength; j++ )
+        {
+            double sum = 0.0;
+            for ( int i = 0; i < alphabetLength; i++ )
+            {
+                double value = random.nextDouble();
+                probability.set( j, i, value );
+                sum += value;
+            }
+            for ( int i = 0; i < alphabetLength; i++ )
+            {
+                probability.set( j, i, probability.get( j, i ) / sum );
+            }
+        }
+        return probability;
+    }
+
+    public void testFrequencies()
+    {
+        // Skewed, with symbols inside and outside the list and a symbol that
+        // can never be drawn
+        double[][] rows = { { 0.5, 0.2, 0.0, 0.1, 0.05, 0.05, 0.06, 0.04 },
+                            { 0.01, 0.02, 0.03, 0.04, 0.1, 0.2, 0.3, 0.3 },
+                            { 0.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0 } };
+        DoubleMatrix probability = new DoubleMatrix( rows.length, rows[0].length );
+        for ( int j = 0; j < rows.length; j++ )
+        {
+            for ( int i = 0; i < rows[j].length; i++ )
+            {
+                probability.set( j, i, rows[j][i] );
+            }
+        }
+        CandidateListSampler sampler = new CandidateListSampler( rows.length, rows[0].length, 3 );
+        sampler.update( probability );
+        RandomUtils randUtils = new RandomUtils( 7 );
+        for ( int j = 0; j < rows.length; j++ )
+        {
+            int[] counts = new int[rows[j].length];
+            for ( int d = 0; d < DRAWS; d++ )
+            {
+                counts[sampler.sample( j, randUtils )]++;
+            }
+            for ( int i = 0; i < rows[j].length; i++ )
+            {
+                double p = rows[j][i];
+                double tolerance = 5 * Math.sqrt( p * ( 1 - p ) / DRAWS ) + 1e-9;
+                assertEquals( "Symbol " + i + " of position " + j, p, counts[i] / (double) DRAWS, tolerance );
+                if ( p == 0.0 )
+                {
+                    assertEquals( 0, counts[i] );
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates following pheromone updates, which scale every trail of a
+     * position and reinforce one symbol, must give the lists a rebuild does
+     */
+    public void testIncrementalUpdate()
+    {
+        int strLength = 40;
+        int alphabetLength = 20;
+        Random random = new Random( 11 );
+        DoubleMatrix probability = randomProbabilities( strLength, alphabetLength, random );
+        CandidateListSampler incremental = new CandidateListSampler( strLength, alphabetLength, 5 );
+        incremental.update( probability );
+        int[] path = new int[strLength];
+        for ( int it = 0; it < 200; it++ )
+        {
+            for ( int j = 0; j < strLength; j++ )
+            {
+                path[j] = random.nextInt( alphabetLength );
+                double deposit = random.nextDouble() * 0.3;
+                for ( int i = 0; i < alphabetLength; i++ )
+                {
+                    double tau = 0.9 * probability.get( j, i ) + ( i == path[j] ? deposit : 0.0 );
+                    probability.set( j, i, tau / ( 0.9 + deposit ) );
+                }
+            }
+            incremental.reinforced( path );
+            incremental.update( probability );
+
+            CandidateListSampler rebuilt = new CandidateListSampler( strLength, alphabetLength, 5 );
+            rebuilt.update( probability );
+            for ( int j = 0; j < strLength; j++ )
+            {
+                for ( int r = 0; r < 5; r++ )
+                {
+                    assertEquals( "Rank " + r + " of position " + j + " at iteration " + it,
+                            rebuilt.getCandidate( j, r ), incremental.getCandidate( j, r ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Without a reinforced path, or after a reset, the lists are rebuilt
+     */
+    public void testReset()
+    {
+        int strLength = 10;
+        int alphabetLength = 8;
+        Random random = new Random( 5 );
+        CandidateListSampler sampler = new CandidateListSampler( strLength, alphabetLength, 3 );
+        sampler.update( randomProbabilities( strLength, alphabetLength, random ) );
+        // Probabilities unrelated to the previous ones, as after a blend
+        DoubleMatrix probability = randomProbabilities( strLength, alphabetLength, random );
+        sampler.reinforced( new int[strLength] );
+        sampler.reset();
+        sampler.update( probability );
+        CandidateListSampler rebuilt = new CandidateListSampler( strLength, alphabetLength, 3 );
+        rebuilt.update( probability );
+        for ( int j = 0; j < strLength; j++ )
+        {
+            for ( int r = 0; r < 3; r++ )
+            {
+                assertEquals( rebuilt.getCandidate( j, r ), sampler.getCandidate( j, r ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package be.vub.swarmintelligence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * A run resumed from a checkpoint must end exactly as the uninterrupted run
+ */
+public class CheckpointTest
+    extends TestCase
+{
+    public CheckpointTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CheckpointTest.class );
+    }
+
+    private static Map<String, Object> config( String instance, Algorithm algorithm, int maxIter )
+    {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put( "instance", instance );
+        cfg.put( "algorithm", algorithm );
+        cfg.put( "seed", 1234 );
+        cfg.put( "numants", 10 );
+        cfg.put( "alpha", 1.0 );
+        cfg.put( "rho", algorithm == Algorithm.MINMAX ? 0.02 : 0.003 );
+        cfg.put( "epsilon", 0.5 );
+        cfg.put( "maxiter", maxIter );
+        cfg.put( "logiterations", false );
+        return cfg;
+    }
+
+    private static void checkResume( Algorithm algorithm, Map<String, Object> options ) throws IOException
+    {
+        String instance = TestInstances.write( 20, 10, 150, 7 );
+        File checkpoint = File.createTempFile( "csp-", ".ckpt" );
+        checkpoint.deleteOnExit();
+
+        Map<String, Object> cfg = config( instance, algorithm, 200 );
+        cfg.putAll( options );
+        CSPSolver uninterrupted = App.createSolver( cfg );
+        uninterrupted.solve();
+
+        cfg = config( instance, algorithm, 100 );
+        cfg.putAll( options );
+        cfg.put( "checkpoint", checkpoint.getPath() );
+        cfg.put( "checkpointinterval", 30 );
+        App.createSolver( cfg ).solve();
+
+        cfg = config( instance, algorithm, 200 );
+        cfg.putAll( options );
+        CSPSolver resumed = App.createSolver( cfg );
+        resumed.restore( Checkpoint.read( checkpoint.toPath() ) );
+        assertEquals( 101, resumed.getCurrentIter() );
+        resumed.solve();
+
+        assertEquals( uninterrupted.getCurrentIter(), resumed.getCurrentIter() );
+        assertEquals( uninterrupted.getBestSolution(), resumed.getBestSolution() );
+        assertEquals( uninterrupted.getCurrentScore(), resumed.getCurrentScore() );
+        assertEquals( uninterrupted.getCurrentMaxHammingDistance(), resumed.getCurrentMaxHammingDistance() );
+    }
+
+    public void testElitist() throws IOException
+    {
+        checkResume( Algorithm.ELITIST, new HashMap<String, Object>() );
+    }
+
+    public void testMinMax() throws IOException
+    {
+        Map<String, Object> options = new HashMap<>();
+        options.put( "restart", 40 );
+        checkResume( Algorithm.MINMAX, options );
+    }
+
+    public void testFrozenPositions() throws IOException
+    {
+        Map<String, Object> options = new HashMap<>();
+        options.put( "freeze", 0.9 );
+        options.put( "unfreeze", 45 );
+        checkResume( Algorithm.ELITIST, options );
+    }
+
+    public void testCandidateLists() throws IOException
+    {
+        Map<String, Object> options = new HashMap<>();
+        options.put( "candidates", 4 );
+        checkResume( Algorithm.ELITIST, options );
+    }
+
+    /**
+     * Overwrites the int at the given offset of a valid checkpoint, or
+     * truncates it when the offset is negative, and checks that reading it
+     * fails with the given message
+     */
+    private static void checkCorrupt( long offset, int value, String message ) throws IOException
+    {
+        CSPSolver solver = App.createSolver( config( TestInstances.write( 4, 5, 30, 2 ), Algorithm.ELITIST, 5 ) );
+        solver.solve();
+        File file = File.createTempFile( "csp-", ".ckpt" );
+        file.deleteOnExit();
+        solver.checkpoint().write( file.toPath() );
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) )
+        {
+            if ( offset < 0 )
+            {
+                raf.setLength( value );
+            }
+            else
+            {
+                raf.seek( offset );
+                // Little endian, as the format
+                raf.writeInt( Integer.reverseBytes( value ) );
+            }
+        }
+        try
+        {
+            Checkpoint.read( file.toPath() );
+            fail( "Expected an error containing '" + message + "'" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertTrue( "Unexpected error: " + e.getMessage(), e.getMessage().contains( message ) );
+        }
+    }
+
+    public void testCorruptCheckpoint() throws IOException
+    {
+        // Offsets: magic 0, version 4, algorithm 8, k 12, n 16, L 20, ants 24,
+        // iteration 28, scale 32, random states 40, algorithm state length
+        // 40 + 16 * (1 + ants)
+        long stateLength = 40 + 16 * 11;
+        checkCorrupt( 0, 0, "is not a checkpoint" );
+        checkCorrupt( 4, 1, "Unsupported checkpoint version 1" );
+        checkCorrupt( 8, 99, "is not a checkpoint: unknown algorithm 99" );
+        checkCorrupt( 8, -1, "is not a checkpoint: unknown algorithm -1" );
+        checkCorrupt( 12, 0, "is not a checkpoint: invalid header" );
+        checkCorrupt( 20, -3, "is not a checkpoint: invalid header" );
+        checkCorrupt( 24, -5, "is not a checkpoint: invalid header" );
+        checkCorrupt( 24, Integer.MAX_VALUE, "is not a checkpoint: truncated header" );
+        checkCorrupt( stateLength, -1, "is not a checkpoint: invalid algorithm state length -1" );
+        checkCorrupt( stateLength, Integer.MAX_VALUE, "should have" );
+        checkCorrupt( 20, Integer.MAX_VALUE, "should have" );
+        checkCorrupt( -1, 20, "is not a checkpoint" );
+        checkCorrupt( -1, 100, "is not a checkpoint: truncated header" );
+    }
+}
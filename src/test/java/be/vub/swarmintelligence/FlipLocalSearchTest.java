@@ -0,0 +1,146 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * The local search must never make a solution worse and must stop within its
+ * budget
+ */
+public class FlipLocalSearchTest
+    extends TestCase
+{
+    public FlipLocalSearchTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FlipLocalSearchTest.class );
+    }
+
+    /**
+     * Evaluator counting the moves evaluated
+     */
+    private static final class CountingEvaluator
+        extends HammingEvaluator
+    {
+        private long evaluations;
+
+        private CountingEvaluator( CSPProblem problem )
+        {
+            super( problem );
+        }
+
+        @Override
+        public int evaluateMove( int position, int symbol )
+        {
+            this.evaluations++;
+            return super.evaluateMove( position, symbol );
+        }
+    }
+
+    private static int[] randomPath( int strLength, int alphabetLength, Random random )
+    {
+        int[] path = new int[strLength];
+        for ( int j = 0; j < strLength; j++ )
+        {
+            path[j] = random.nextInt( alphabetLength );
+        }
+        return path;
+    }
+
+    private static void checkNeverWorse( LocalSearchMode mode ) throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( 4, 12, 60, 9 ) );
+        HammingEvaluator evaluator = new HammingEvaluator( problem );
+        HammingEvaluator reference = new HammingEvaluator( problem );
+        FlipLocalSearch search = new FlipLocalSearch( mode, 0, 0 );
+        Random random = new Random( 21 );
+        for ( int run = 0; run < 30; run++ )
+        {
+            evaluator.load( randomPath( problem.getStrLength(), problem.getAlphabetLength(), random ) );
+            int max = evaluator.getMax();
+            long sum = evaluator.getSum();
+            int moves = search.improve( evaluator );
+            assertTrue( moves >= 0 );
+            assertFalse( "The search made the solution worse",
+                    BestSolution.isBetter( max, sum, evaluator.getMax(), evaluator.getSum() ) );
+            if ( moves > 0 )
+            {
+                assertTrue( BestSolution.isBetter( evaluator.getMax(), evaluator.getSum(), max, sum ) );
+            }
+
+            // The evaluator holds the scores of the path it reports
+            reference.load( evaluator.getPath().clone() );
+            assertEquals( reference.getMax(), evaluator.getMax() );
+            assertEquals( reference.getSum(), evaluator.getSum() );
+
+            // Without budget the search ends on a local optimum
+            int[] path = evaluator.getPath();
+            for ( int j = 0; j < path.length; j++ )
+            {
+                for ( int i = 0; i < problem.getAlphabetLength(); i++ )
+                {
+                    if ( i != path[j] )
+                    {
+                        int moveMax = evaluator.evaluateMove( j, i );
+                        assertFalse( BestSolution.isBetter( moveMax, evaluator.getCandidateSum(), evaluator.getMax(),
+                                evaluator.getSum() ) );
+                    }
+                }
+            }
+        }
+    }
+
+    public void testFirstImprovement() throws IOException
+    {
+        checkNeverWorse( LocalSearchMode.FIRST );
+    }
+
+    public void testBestImprovement() throws IOException
+    {
+        checkNeverWorse( LocalSearchMode.BEST );
+    }
+
+    public void testEvaluationBudget() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( 4, 12, 60, 9 ) );
+        Random random = new Random( 4 );
+        for ( LocalSearchMode mode : LocalSearchMode.values() )
+        {
+            for ( int budget : new int[] { 1, 37, 500 } )
+            {
+                CountingEvaluator evaluator = new CountingEvaluator( problem );
+                evaluator.load( randomPath( problem.getStrLength(), problem.getAlphabetLength(), random ) );
+                int max = evaluator.getMax();
+                long sum = evaluator.getSum();
+                new FlipLocalSearch( mode, budget, 0 ).improve( evaluator );
+                assertTrue( mode + " evaluated " + evaluator.evaluations + " moves for a budget of " + budget,
+                        evaluator.evaluations <= budget );
+                assertFalse( BestSolution.isBetter( max, sum, evaluator.getMax(), evaluator.getSum() ) );
+            }
+        }
+    }
+
+    /**
+     * The clock is checked every 256 moves, an expired budget stops the
+     * search at the first check
+     */
+    public void testTimeBudget() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( 20, 30, 500, 2 ) );
+        CountingEvaluator evaluator = new CountingEvaluator( problem );
+        evaluator.load( randomPath( problem.getStrLength(), problem.getAlphabetLength(), new Random( 6 ) ) );
+        int max = evaluator.getMax();
+        long sum = evaluator.getSum();
+        new FlipLocalSearch( LocalSearchMode.BEST, 0, 1 ).improve( evaluator );
+        assertTrue( evaluator.evaluations < 256 );
+        assertFalse( BestSolution.isBetter( max, sum, evaluator.getMax(), evaluator.getSum() ) );
+    }
+}
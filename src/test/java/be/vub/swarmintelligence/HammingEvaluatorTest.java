@@ -0,0 +1,72 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks the incremental updates of the evaluator against full evaluations
+ */
+public class HammingEvaluatorTest
+    extends TestCase
+{
+    public HammingEvaluatorTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HammingEvaluatorTest.class );
+    }
+
+    private static void checkRandomMoves( int alphabetLength ) throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( alphabetLength, 15, 40, alphabetLength ) );
+        HammingEvaluator evaluator = new HammingEvaluator( problem );
+        HammingEvaluator reference = new HammingEvaluator( problem );
+        Random random = new Random( 42 );
+        int[] path = new int[problem.getStrLength()];
+        for ( int j = 0; j < path.length; j++ )
+        {
+            path[j] = random.nextInt( alphabetLength );
+        }
+        evaluator.load( path );
+        for ( int move = 0; move < 2000; move++ )
+        {
+            int position = random.nextInt( path.length );
+            int symbol = random.nextInt( alphabetLength );
+
+            int[] candidate = path.clone();
+            candidate[position] = symbol;
+            reference.load( candidate );
+            assertEquals( reference.getMax(), evaluator.evaluateMove( position, symbol ) );
+            assertEquals( reference.getSum(), evaluator.getCandidateSum() );
+
+            if ( random.nextBoolean() )
+            {
+                evaluator.set( position, symbol );
+                path = candidate;
+                assertEquals( reference.getSum(), evaluator.getSum() );
+                assertEquals( reference.getMax(), evaluator.getMax() );
+                assertEquals( reference.getMin(), evaluator.getMin() );
+            }
+        }
+    }
+
+    public void testSmallAlphabet() throws IOException
+    {
+        checkRandomMoves( 4 );
+    }
+
+    /**
+     * Symbols above 127 are stored as negative bytes
+     */
+    public void testLargeAlphabet() throws IOException
+    {
+        checkRandomMoves( 200 );
+    }
+}
@@ -0,0 +1,99 @@
+package be.vub.swarmintelligence;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Lazy evaporation through the scale factor must give the same trails as
+ * evaporating every cell
+ */
+public class HeuristicPheromoneMatrixTest
+    extends TestCase
+{
+    private static final int STR_LENGTH = 30;
+    private static final int ALPHABET_LENGTH = 4;
+
+    public HeuristicPheromoneMatrixTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HeuristicPheromoneMatrixTest.class );
+    }
+
+    /**
+     * Applies the same evaporations and deposits lazily and eagerly, and
+     * compares the trails after each iteration
+     *
+     * @return the number of times the scale factor was folded back into the
+     *         stored values
+     */
+    private static int checkEvaporation( double rho, int iterations )
+    {
+        HeuristicPheromoneMatrix matrix = new HeuristicPheromoneMatrix( STR_LENGTH, ALPHABET_LENGTH );
+        matrix.fillPheromone( 1.0 / ALPHABET_LENGTH );
+        double[] eager = new double[STR_LENGTH * ALPHABET_LENGTH];
+        Arrays.fill( eager, 1.0 / ALPHABET_LENGTH );
+        Random random = new Random( 42 );
+        int renormalisations = 0;
+        for ( int it = 0; it < iterations; it++ )
+        {
+            double scale = matrix.getPheromoneScale();
+            matrix.evaporate( 1.0 - rho );
+            assertTrue( matrix.getPheromoneScale() >= 1e-100 );
+            if ( matrix.getPheromoneScale() > scale )
+            {
+                renormalisations++;
+            }
+            for ( int i = 0; i < eager.length; i++ )
+            {
+                eager[i] *= 1.0 - rho;
+            }
+            double deposit = 0.5 / ( 1 + random.nextInt( 30 ) );
+            for ( int j = 0; j < STR_LENGTH; j++ )
+            {
+                int symbol = random.nextInt( ALPHABET_LENGTH );
+                matrix.depositPheromone( j, symbol, deposit );
+                eager[j * ALPHABET_LENGTH + symbol] += deposit;
+            }
+
+            double[] lazy = matrix.copyPheromoneValues();
+            for ( int i = 0; i < eager.length; i++ )
+            {
+                assertEquals( "Cell " + i + " at iteration " + it, eager[i], lazy[i], eager[i] * 1e-9 );
+                assertEquals( eager[i], matrix.getPheromoneValue( i / ALPHABET_LENGTH, i % ALPHABET_LENGTH ),
+                        eager[i] * 1e-9 );
+            }
+        }
+        matrix.normalizePheromone();
+        assertEquals( 1.0, matrix.getPheromoneScale() );
+        double[] normalised = matrix.getPheromoneValues();
+        for ( int i = 0; i < eager.length; i++ )
+        {
+            assertEquals( eager[i], normalised[i], eager[i] * 1e-9 );
+        }
+        return renormalisations;
+    }
+
+    public void testLazyEvaporation()
+    {
+        assertEquals( 0, checkEvaporation( 0.003, 2000 ) );
+    }
+
+    /**
+     * A strong evaporation takes the scale factor below its minimum, where the
+     * stored values are renormalised
+     */
+    public void testScaleRenormalisation()
+    {
+        // 0.5^333 is below 1e-100, so the scale is folded back every 333
+        // iterations
+        assertEquals( 3, checkEvaporation( 0.5, 1000 ) );
+    }
+}
@@ -0,0 +1,84 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Island runs must report the best of their colonies, and stop every colony
+ * when one of them fails
+ */
+public class IslandModelTest
+    extends TestCase
+{
+    public IslandModelTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( IslandModelTest.class );
+    }
+
+    private static Map<String, Object> config( int maxIter )
+    {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put( "instance", IslandModelTest.class.getResource( "/small.txt" ).getPath() );
+        cfg.put( "algorithm", Algorithm.ELITIST );
+        cfg.put( "seed", 1234 );
+        cfg.put( "numants", 10 );
+        cfg.put( "alpha", 1.0 );
+        cfg.put( "rho", 0.003 );
+        cfg.put( "epsilon", 0.5 );
+        cfg.put( "maxiter", maxIter );
+        cfg.put( "islands", 2 );
+        cfg.put( "migration", 10 );
+        cfg.put( "blend", 0.1 );
+        return cfg;
+    }
+
+    public void testBestColony() throws IOException
+    {
+        IslandModel islands = new IslandModel( config( 100 ) );
+        islands.solve();
+        CSPSolver best = islands.getBestColony();
+        assertEquals( 2, islands.getColonies().size() );
+        for ( CSPSolver colony : islands.getColonies() )
+        {
+            assertEquals( 101, colony.getCurrentIter() );
+            assertFalse( BestSolution.isBetter( colony.getCurrentMaxHammingDistance(), colony.getCurrentScore(),
+                    best.getCurrentMaxHammingDistance(), best.getCurrentScore() ) );
+        }
+        assertTrue( best.getCurrentMaxHammingDistance() >= best.getLowerBound() );
+    }
+
+    public void testFailingColony() throws IOException, InterruptedException
+    {
+        IslandModel islands = new IslandModel( config( Integer.MAX_VALUE - 1 ) );
+        islands.getColonies().get( 0 ).setIterationListener( s -> {
+            if ( s.getCurrentIter() == 20 )
+            {
+                throw new IllegalArgumentException( "Broken colony" );
+            }
+        } );
+        try
+        {
+            islands.solve();
+            fail( "The failure of a colony was not reported" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "Broken colony", e.getCause().getMessage() );
+        }
+        // The other colony stopped instead of running to its own limit
+        CSPSolver other = islands.getColonies().get( 1 );
+        int stoppedAt = other.getCurrentIter();
+        Thread.sleep( 100 );
+        assertEquals( stoppedAt, other.getCurrentIter() );
+    }
+}
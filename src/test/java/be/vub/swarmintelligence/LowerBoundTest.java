@@ -0,0 +1,68 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Lower bounds of instances small enough to be checked by hand
+ */
+public class LowerBoundTest
+    extends TestCase
+{
+    public LowerBoundTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( LowerBoundTest.class );
+    }
+
+    /**
+     * The last two strings are at distance 5, so any solution is at distance
+     * at least 3 of one of them. Every position has a single minority symbol,
+     * 5 mismatches over 3 strings give a counting bound of 2.
+     */
+    public void testPairwiseBound() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( "ACGT", "AAAAA", "AACCC", "CCAAA" ) );
+        assertEquals( 3, LowerBound.pairwiseBound( problem, null ) );
+        assertEquals( 2, LowerBound.countingBound( problem ) );
+        assertEquals( 3, LowerBound.compute( problem, null ) );
+        assertEquals( 3, problem.getLowerBound( null ) );
+    }
+
+    /**
+     * Every pair of strings differs everywhere, a pairwise bound of 2, but
+     * every position holds 4 distinct symbols: 3 mismatches per position, 12
+     * over 4 strings give a counting bound of 3
+     */
+    public void testCountingBound() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( "ACGT", "ACGT", "CGTA", "GTAC", "TACG" ) );
+        assertEquals( 2, LowerBound.pairwiseBound( problem, null ) );
+        assertEquals( 3, LowerBound.countingBound( problem ) );
+        assertEquals( 3, LowerBound.compute( problem, null ) );
+    }
+
+    /**
+     * Both bounds round up: a largest distance of 3 gives 2, one mismatch per
+     * position, 4 over 3 strings, gives 2 as well
+     */
+    public void testRounding() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( "AC", "AAAA", "ACAC", "CCCA" ) );
+        assertEquals( 2, LowerBound.pairwiseBound( problem, null ) );
+        assertEquals( 2, LowerBound.countingBound( problem ) );
+    }
+
+    public void testIdenticalStrings() throws IOException
+    {
+        CSPProblem problem = new CSPProblem( TestInstances.write( "AC", "ACCA", "ACCA" ) );
+        assertEquals( 0, LowerBound.compute( problem, null ) );
+    }
+}
@@ -0,0 +1,106 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Well formed instances must load, every structural error must be reported
+ */
+public class MappedInstanceLoaderTest
+    extends TestCase
+{
+    private static final String HEADER = "2\n3\n4\nA\nC\n";
+
+    public MappedInstanceLoaderTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MappedInstanceLoaderTest.class );
+    }
+
+    private static MappedInstanceLoader load( String content ) throws IOException
+    {
+        MappedInstanceLoader loader = new MappedInstanceLoader( TestInstances.writeRaw( content ) );
+        loader.load();
+        return loader;
+    }
+
+    private static void assertRejected( String content, String message ) throws IOException
+    {
+        try
+        {
+            load( content );
+            fail( "Expected an error containing '" + message + "'" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertTrue( "Unexpected error: " + e.getMessage(), e.getMessage().contains( message ) );
+        }
+    }
+
+    public void testValidInstance() throws IOException
+    {
+        // Windows line endings, no final newline
+        MappedInstanceLoader loader = load( "2\r\n3\r\n4\r\nA\r\nC\r\nAACC\r\nCCAA\r\nACAC" );
+        assertEquals( 2, loader.getAlphabetLength() );
+        assertEquals( 3, loader.getNumStr() );
+        assertEquals( 4, loader.getStrLength() );
+        assertEquals( Arrays.asList( 'A', 'C' ), loader.getAlphabet() );
+        assertTrue( Arrays.equals( new byte[] { 0, 0, 1, 1, 1, 1, 0, 0, 0, 1, 0, 1 }, loader.getSymbols() ) );
+    }
+
+    public void testTrailingBlankLines() throws IOException
+    {
+        assertEquals( 3, load( HEADER + "AACC\nCCAA\nACAC\n\n\n" ).getNumStr() );
+    }
+
+    public void testInvalidHeader() throws IOException
+    {
+        assertRejected( "two\n3\n4\nA\nC\n", "Invalid alphabet length 'two' at line 1" );
+        assertRejected( "2\n0\n4\nA\nC\n", "Invalid number of strings '0' at line 2" );
+        assertRejected( "2\n3\n-4\nA\nC\n", "Invalid string length '-4' at line 3" );
+        assertRejected( "300\n3\n4\n", "more than 256 symbols" );
+    }
+
+    public void testMissingSymbol() throws IOException
+    {
+        assertRejected( "2\n3\n4\nA\n\nAACC\n", "Missing alphabet symbol at line 5" );
+    }
+
+    public void testDuplicateSymbol() throws IOException
+    {
+        assertRejected( "2\n3\n4\nA\nA\nAAAA\nAAAA\nAAAA\n", "Duplicate alphabet symbol 'A' at line 5" );
+    }
+
+    public void testBlankLine() throws IOException
+    {
+        assertRejected( HEADER + "AACC\n\nCCAA\nACAC\n", "Blank line at line 7 before string 1" );
+        assertRejected( HEADER + "\nAACC\nCCAA\nACAC\n", "Blank line at line 6 before string 0" );
+        assertRejected( HEADER + "AACC\n \r\nCCAA\nACAC\n", "Blank line at line 7" );
+    }
+
+    public void testUnknownSymbol() throws IOException
+    {
+        assertRejected( HEADER + "AACC\nCGAA\nACAC\n", "Symbol 'G' at line 7 is not part of the alphabet" );
+    }
+
+    public void testStringLength() throws IOException
+    {
+        assertRejected( HEADER + "AACC\nCCA\nACAC\n", "String 1 at line 7 has length 3 instead of 4" );
+        assertRejected( HEADER + "AACC\nCCAAA\nACAC\n", "String at line 7 is longer than 4" );
+        assertRejected( HEADER + "AACC\nCCAA\nACA", "String 2 at line 8 has length 3 instead of 4" );
+    }
+
+    public void testNumberOfStrings() throws IOException
+    {
+        assertRejected( HEADER + "AACC\nCCAA\n", "Expected 3 strings but found 2" );
+        assertRejected( HEADER + "AACC\nCCAA\nACAC\nAAAA\n", "Expected 3 strings but found more at line 9" );
+    }
+}
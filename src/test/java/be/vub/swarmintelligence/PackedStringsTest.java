@@ -0,0 +1,115 @@
+package be.vub.swarmintelligence;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * The packed distances must match a symbol by symbol comparison, whatever the
+ * lane width and the filling of the last word
+ */
+public class PackedStringsTest
+    extends TestCase
+{
+    // One alphabet size per lane width, from 1 to 8 bits
+    private static final int[] ALPHABET_LENGTHS = { 2, 3, 5, 9, 20, 33, 65, 200 };
+
+    // Full words, partial last words and strings shorter than a word
+    private static final int[] STRING_LENGTHS = { 1, 7, 12, 25, 64, 100, 131 };
+
+    public PackedStringsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PackedStringsTest.class );
+    }
+
+    private static int naiveDistance( byte[] symbols, int strLength, int str1, int str2 )
+    {
+        int distance = 0;
+        for ( int j = 0; j < strLength; j++ )
+        {
+            if ( symbols[str1 * strLength + j] != symbols[str2 * strLength + j] )
+            {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    private static void checkDistances( int alphabetLength, int strLength )
+    {
+        int numStr = 6;
+        Random random = new Random( alphabetLength * 1000 + strLength );
+        byte[] symbols = new byte[numStr * strLength];
+        for ( int i = 0; i < symbols.length; i++ )
+        {
+            symbols[i] = (byte) random.nextInt( alphabetLength );
+        }
+        // Mostly equal strings, so that the distances are not all close to L
+        for ( int s = 1; s < numStr; s++ )
+        {
+            for ( int j = 0; j < strLength; j++ )
+            {
+                if ( random.nextInt( 3 ) > 0 )
+                {
+                    symbols[s * strLength + j] = symbols[j];
+                }
+            }
+        }
+        PackedStrings packed = new PackedStrings( symbols, numStr, strLength, alphabetLength );
+        String context = "k=" + alphabetLength + " L=" + strLength;
+
+        long[] buffer = packed.newBuffer();
+        int[] path = new int[strLength];
+        for ( int s = 0; s < numStr; s++ )
+        {
+            for ( int j = 0; j < strLength; j++ )
+            {
+                path[j] = symbols[s * strLength + j] & 0xFF;
+                assertEquals( context, path[j], packed.symbol( s, j ) );
+            }
+            packed.pack( path, buffer );
+            for ( int other = 0; other < numStr; other++ )
+            {
+                int expected = naiveDistance( symbols, strLength, s, other );
+                assertEquals( context, expected, packed.distance( other, buffer ) );
+                assertEquals( context, expected, packed.distance( s, other ) );
+            }
+        }
+    }
+
+    public void testLaneWidths()
+    {
+        for ( int i = 0; i < ALPHABET_LENGTHS.length; i++ )
+        {
+            assertEquals( i + 1, PackedStrings.bitsPerSymbol( ALPHABET_LENGTHS[i] ) );
+        }
+        // A single symbol still takes one bit
+        assertEquals( 1, PackedStrings.bitsPerSymbol( 1 ) );
+    }
+
+    public void testPartialLastWord()
+    {
+        // 5-bit lanes, 12 symbols in 60 of the 64 bits of every word
+        assertEquals( 5, PackedStrings.bitsPerSymbol( 20 ) );
+        assertEquals( 3, PackedStrings.wordsPerString( 25, 20 ) );
+        checkDistances( 20, 25 );
+    }
+
+    public void testDistances()
+    {
+        for ( int alphabetLength : ALPHABET_LENGTHS )
+        {
+            for ( int strLength : STRING_LENGTHS )
+            {
+                checkDistances( alphabetLength, strLength );
+            }
+        }
+    }
+}
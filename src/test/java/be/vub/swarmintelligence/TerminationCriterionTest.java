@@ -0,0 +1,186 @@
+package be.vub.swarmintelligence;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Every termination criterion must fire exactly at its boundary
+ */
+public class TerminationCriterionTest
+    extends TestCase
+{
+    /**
+     * Solver whose iteration and best distance are set by the test
+     */
+    private static final class StubSolver
+        extends CSPElitistSolver
+    {
+        private long max;
+
+        private StubSolver() throws IOException
+        {
+            super( config() );
+        }
+
+        private void at( int iteration, long maxHammingDistance )
+        {
+            this.currentIter = iteration;
+            this.max = maxHammingDistance;
+        }
+
+        @Override
+        protected long getCurrentMaxHammingDistance()
+        {
+            return this.max;
+        }
+    }
+
+    /**
+     * Criterion recording how often it is checked
+     */
+    private static final class FixedCriterion
+        implements TerminationCriterion
+    {
+        private final boolean met;
+        private int starts;
+        private int checks;
+
+        private FixedCriterion( boolean met )
+        {
+            this.met = met;
+        }
+
+        @Override
+        public void start()
+        {
+            this.starts++;
+        }
+
+        @Override
+        public boolean terminate( CSPSolver solver )
+        {
+            this.checks++;
+            return this.met;
+        }
+    }
+
+    private StubSolver solver;
+
+    public TerminationCriterionTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TerminationCriterionTest.class );
+    }
+
+    private static Map<String, Object> config()
+    {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put( "instance", TerminationCriterionTest.class.getResource( "/small.txt" ).getPath() );
+        cfg.put( "algorithm", Algorithm.ELITIST );
+        cfg.put( "seed", 1234 );
+        cfg.put( "numants", 2 );
+        cfg.put( "alpha", 1.0 );
+        cfg.put( "rho", 0.003 );
+        cfg.put( "epsilon", 0.5 );
+        cfg.put( "maxiter", 10 );
+        cfg.put( "logiterations", false );
+        return cfg;
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        this.solver = new StubSolver();
+    }
+
+    public void testMaxIterations()
+    {
+        TerminationCriterion criterion = new MaxIterationsCriterion( 10 );
+        criterion.start();
+        this.solver.at( 10, 30 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 11, 30 );
+        assertTrue( criterion.terminate( this.solver ) );
+    }
+
+    public void testTargetScore()
+    {
+        TerminationCriterion criterion = new TargetScoreCriterion( 25 );
+        criterion.start();
+        this.solver.at( 1, 26 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 2, 25 );
+        assertTrue( criterion.terminate( this.solver ) );
+        this.solver.at( 3, 24 );
+        assertTrue( criterion.terminate( this.solver ) );
+    }
+
+    public void testTimeBudget()
+    {
+        long now = System.nanoTime();
+        long hour = 3600l * 1000000000l;
+        TerminationCriterion criterion = new TimeBudgetCriterion( hour, now );
+        criterion.start();
+        assertFalse( criterion.terminate( this.solver ) );
+        // Started an hour and a millisecond ago
+        criterion = new TimeBudgetCriterion( hour, now - hour - 1000000l );
+        assertTrue( criterion.terminate( this.solver ) );
+        // The clock is counted from the given start, not from start()
+        criterion.start();
+        assertTrue( criterion.terminate( this.solver ) );
+    }
+
+    public void testStagnation()
+    {
+        TerminationCriterion criterion = new StagnationCriterion( 3 );
+        criterion.start();
+        this.solver.at( 1, 30 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 2, 30 );
+        assertFalse( criterion.terminate( this.solver ) );
+        // Improvement, the count starts again
+        this.solver.at( 3, 29 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 4, 29 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 5, 29 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 6, 29 );
+        assertTrue( criterion.terminate( this.solver ) );
+
+        // A new start forgets the previous run
+        criterion.start();
+        this.solver.at( 7, 29 );
+        assertFalse( criterion.terminate( this.solver ) );
+        this.solver.at( 10, 29 );
+        assertTrue( criterion.terminate( this.solver ) );
+    }
+
+    public void testAnyOf()
+    {
+        FixedCriterion met = new FixedCriterion( true );
+        FixedCriterion unmet = new FixedCriterion( false );
+        FixedCriterion last = new FixedCriterion( false );
+        TerminationCriterion any = CompositeCriterion.anyOf( Arrays.asList( met, unmet, last ) );
+        any.start();
+        assertTrue( any.terminate( this.solver ) );
+        // No short-circuit, every criterion sees every check
+        assertEquals( 1, met.starts );
+        assertEquals( 1, last.starts );
+        assertEquals( 1, unmet.checks );
+        assertEquals( 1, last.checks );
+
+        TerminationCriterion none = CompositeCriterion.anyOf( Arrays.<TerminationCriterion> asList( unmet, last ) );
+        assertFalse( none.terminate( this.solver ) );
+    }
+}
@@ -0,0 +1,107 @@
+package be.vub.swarmintelligence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Random instances written to temporary files for the tests
+ */
+public final class TestInstances
+{
+    private TestInstances()
+    {
+    }
+
+    /**
+     * Symbol of the given index. Symbols are single bytes, starting at '0'
+     * so that alphabets of up to 200 symbols reach byte values above 127
+     */
+    public static char symbol( int index )
+    {
+        return (char) ( '0' + index );
+    }
+
+    /**
+     * Writes a random instance in the text format
+     *
+     * @param alphabetLength at most 200
+     * @param numStr
+     * @param strLength
+     * @param seed
+     * @return the file location
+     */
+    public static String write( int alphabetLength, int numStr, int strLength, long seed ) throws IOException
+    {
+        File file = File.createTempFile( "csp-" + alphabetLength + "-" + numStr + "-" + strLength + "-", ".txt" );
+        file.deleteOnExit();
+        Random random = new Random( seed );
+        try ( OutputStream out = Files.newOutputStream( file.toPath() ) )
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append( alphabetLength ).append( '\n' ).append( numStr ).append( '\n' ).append( strLength ).append( '\n' );
+            for ( int i = 0; i < alphabetLength; i++ )
+            {
+                sb.append( symbol( i ) ).append( '\n' );
+            }
+            for ( int s = 0; s < numStr; s++ )
+            {
+                for ( int j = 0; j < strLength; j++ )
+                {
+                    sb.append( symbol( random.nextInt( alphabetLength ) ) );
+                }
+                sb.append( '\n' );
+            }
+            out.write( sb.toString().getBytes( "ISO-8859-1" ) );
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Writes the given strings as an instance in the text format
+     *
+     * @param alphabet one character per symbol
+     * @param strings all of the same length
+     * @return the file location
+     */
+    public static String write( String alphabet, String... strings ) throws IOException
+    {
+        File file = File.createTempFile( "csp-", ".txt" );
+        file.deleteOnExit();
+        StringBuilder sb = new StringBuilder();
+        sb.append( alphabet.length() ).append( '\n' ).append( strings.length ).append( '\n' )
+            .append( strings[0].length() ).append( '\n' );
+        for ( int i = 0; i < alphabet.length(); i++ )
+        {
+            sb.append( alphabet.charAt( i ) ).append( '\n' );
+        }
+        for ( String str : strings )
+        {
+            sb.append( str ).append( '\n' );
+        }
+        try ( OutputStream out = Files.newOutputStream( file.toPath() ) )
+        {
+            out.write( sb.toString().getBytes( "ISO-8859-1" ) );
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Writes the given content as it is, e.g. to build malformed instances
+     *
+     * @param content
+     * @return the file location
+     */
+    public static String writeRaw( String content ) throws IOException
+    {
+        File file = File.createTempFile( "csp-", ".txt" );
+        file.deleteOnExit();
+        try ( OutputStream out = Files.newOutputStream( file.toPath() ) )
+        {
+            out.write( content.getBytes( "ISO-8859-1" ) );
+        }
+        return file.getPath();
+    }
+}